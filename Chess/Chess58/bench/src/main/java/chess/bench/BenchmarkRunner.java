@@ -0,0 +1,34 @@
+/**
+ * BenchmarkRunner is the entry point of the benchmark jar. It runs the JMH benchmarks with the GC profiler always on,
+ * so every result shows the allocation rate (gc.alloc.rate.norm, in bytes per operation) next to the throughput.
+ * Any JMH command line option can be passed, e.g: "java -jar benchmarks.jar PieceBenchmark -p piece=ROOK".
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+    /**
+     * Runs the benchmarks selected on the command line, or all of them
+     * @param args JMH command line options
+     * @throws RunnerException if a benchmark fails
+     * @throws CommandLineOptionException if the options cannot be parsed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * BoardBenchmark measures the Board methods that decide whether a move is legal: updateBoard, inCheck and hasLegalMove.
+ * Each benchmark runs over the whole middlegame or endgame corpus of Positions.
+ * updateBoard changes the board it runs on, so it works on a fresh copy every time and copyBoard measures that copy on its own.
+ * hasLegalMove only lists legal moves and leaves the board as it was, so it runs on the corpus positions themselves.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess.bench;
+
+import chess.Bitboard;
+import chess.Board;
+import chess.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+
+    /**
+     * phase picks the part of the corpus: "middlegame" or "endgame"
+     */
+    @Param({ "middlegame", "endgame" })
+    public String phase;
+
+    /**
+     * boards holds the corpus positions and whiteToMove the side to move in each
+     * moveBoard and moves list every legal move of the corpus together with the index of the board it is played on
+     * next is the index of the legal move the next updateBoard call plays
+     */
+    private Board[] boards;
+    private boolean[] whiteToMove;
+    private int[] moveBoard;
+    private int[] moves;
+    private int next;
+
+    /**
+     * Sets up the corpus and collects the legal moves of every position
+     */
+    @Setup
+    public void setup() {
+        String[] corpus = phase.equals("middlegame") ? Positions.MIDDLEGAMES : Positions.ENDGAMES;
+        boards = new Board[corpus.length];
+        whiteToMove = new boolean[corpus.length];
+        int[] legalBoard = new int[corpus.length * Move.MAX_MOVES];
+        int[] legalMoves = new int[corpus.length * Move.MAX_MOVES];
+        int total = 0;
+        int[] buffer = new int[Move.MAX_MOVES];
+        for(int i = 0; i < corpus.length; i++){
+            boards[i] = Positions.load(corpus[i]);
+            whiteToMove[i] = Positions.isWhiteToMove(corpus[i]);
+            int count = boards[i].generateMoves(whiteToMove[i], buffer);
+            for(int k = 0; k < count; k++){
+                if(play(new Board(boards[i]), buffer[k], whiteToMove[i])){
+                    legalBoard[total] = i;
+                    legalMoves[total] = buffer[k];
+                    total++;
+                }
+            }
+        }
+        moveBoard = Arrays.copyOf(legalBoard, total);
+        moves = Arrays.copyOf(legalMoves, total);
+    }
+
+    /**
+     * Copies one corpus position, the fixed cost included in updateBoard
+     * @return the copy
+     */
+    @Benchmark
+    public Board copyBoard() {
+        int k = advance();
+        return new Board(boards[moveBoard[k]]);
+    }
+
+    /**
+     * Plays one legal move of the corpus on a copy of its position
+     * @return result of updateBoard
+     */
+    @Benchmark
+    public boolean updateBoard() {
+        int k = advance();
+        int i = moveBoard[k];
+        return play(new Board(boards[i]), moves[k], whiteToMove[i]);
+    }
+
+    /**
+     * Asks both players of every corpus position whether they are in check
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void inCheck(Blackhole blackhole) {
+        for(Board board : boards){
+            blackhole.consume(Board.inCheck(0, 0, board, true));
+            blackhole.consume(Board.inCheck(0, 0, board, false));
+        }
+    }
+
+    /**
+     * Runs hasLegalMove for the side to move of every corpus position
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void hasLegalMove(Blackhole blackhole) {
+        for(int i = 0; i < boards.length; i++){
+            blackhole.consume(Board.hasLegalMove(whiteToMove[i] ? "w" : "b", boards[i]));
+        }
+    }
+
+    /**
+     * Moves on to the next legal move of the corpus, wrapping around at the end
+     * @return index of the move to use
+     */
+    private int advance() {
+        int k = next;
+        next = k + 1 == moves.length ? 0 : k + 1;
+        return k;
+    }
+
+    /**
+     * Plays a packed move through updateBoard
+     * @param board board the move is made on
+     * @param move packed move
+     * @param white true if white makes the move
+     * @return true if the move was legal
+     */
+    private static boolean play(Board board, int move, boolean white) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        return board.updateBoard(Bitboard.row(from), Bitboard.col(from), Bitboard.row(to), Bitboard.col(to), board, white);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * PieceBenchmark measures listMoves and canMove of one kind of piece over every position of the corpus in Positions, plus the EN_PASSANT positions.
+ * canMove gets every move listMoves generates, castling and en passant included; it only looks at the board, so the positions never change between calls.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess.bench;
+
+import chess.Bitboard;
+import chess.Board;
+import chess.Move;
+import chess.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceBenchmark {
+
+    /**
+     * EN_PASSANT are positions right after a double push that can be taken en passant, one for each side. The corpus has no last move, so it never allows one.
+     */
+    private static final String[] EN_PASSANT = {
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbqkbnr/pppp1ppp/8/8/3PpP2/8/PPP1P1PP/RNBQKBNR b KQkq f3 0 3"
+    };
+
+    /**
+     * piece picks the kind of piece being measured
+     */
+    @Param({ "PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING" })
+    public String piece;
+
+    /**
+     * pieceBoard, pieceRow and pieceCol locate every piece of the measured kind in the corpus
+     * moveIndex, moveRow and moveCol give the piece and destination of every candidate move for canMove
+     * buffer receives the moves written by listMoves
+     */
+    private Board[] pieceBoard;
+    private int[] pieceRow;
+    private int[] pieceCol;
+    private int[] moveIndex;
+    private int[] moveRow;
+    private int[] moveCol;
+    private final int[] buffer = new int[Move.MAX_MOVES];
+
+    /**
+     * Finds every piece of the measured kind in the corpus and the moves it can make
+     */
+    @Setup
+    public void setup() {
+        int type = Arrays.asList("PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING").indexOf(piece);
+        String[] corpus = Positions.all();
+        Board[] boards = new Board[corpus.length + EN_PASSANT.length];
+        for(int i = 0; i < corpus.length; i++){
+            boards[i] = Positions.load(corpus[i]);
+        }
+        for(int i = 0; i < EN_PASSANT.length; i++){
+            boards[corpus.length + i] = new Board();
+            boards[corpus.length + i].loadFen(EN_PASSANT[i]);
+        }
+        pieceBoard = new Board[64 * boards.length];
+        pieceRow = new int[pieceBoard.length];
+        pieceCol = new int[pieceBoard.length];
+        moveIndex = new int[pieceBoard.length * Move.MAX_MOVES];
+        moveRow = new int[moveIndex.length];
+        moveCol = new int[moveIndex.length];
+        int pieces = 0;
+        int candidates = 0;
+        for(Board board : boards){
+            for(int color = Piece.WHITE; color <= Piece.BLACK; color++){
+                long bits = board.getPieceBitboard(color, type);
+                while(bits != 0){
+                    int square = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int row = Bitboard.row(square);
+                    int col = Bitboard.col(square);
+                    int count = board.getBoard()[row][col].listMoves(row, col, board, buffer, 0);
+                    for(int k = 0; k < count; k++){
+                        moveIndex[candidates] = pieces;
+                        moveRow[candidates] = Bitboard.row(Move.to(buffer[k]));
+                        moveCol[candidates] = Bitboard.col(Move.to(buffer[k]));
+                        candidates++;
+                    }
+                    pieceBoard[pieces] = board;
+                    pieceRow[pieces] = row;
+                    pieceCol[pieces] = col;
+                    pieces++;
+                }
+            }
+        }
+        pieceBoard = Arrays.copyOf(pieceBoard, pieces);
+        pieceRow = Arrays.copyOf(pieceRow, pieces);
+        pieceCol = Arrays.copyOf(pieceCol, pieces);
+        moveIndex = Arrays.copyOf(moveIndex, candidates);
+        moveRow = Arrays.copyOf(moveRow, candidates);
+        moveCol = Arrays.copyOf(moveCol, candidates);
+    }
+
+    /**
+     * Lists the moves of every piece of the measured kind in the corpus
+     * @return total number of moves listed
+     */
+    @Benchmark
+    public int listMoves() {
+        int total = 0;
+        for(int i = 0; i < pieceBoard.length; i++){
+            Board board = pieceBoard[i];
+            total += board.getBoard()[pieceRow[i]][pieceCol[i]].listMoves(pieceRow[i], pieceCol[i], board, buffer, 0);
+        }
+        return total;
+    }
+
+    /**
+     * Asks canMove about every candidate move of the measured kind of piece in the corpus
+     * @return number of moves canMove accepted
+     */
+    @Benchmark
+    public int canMove() {
+        int accepted = 0;
+        for(int k = 0; k < moveIndex.length; k++){
+            int i = moveIndex[k];
+            Board board = pieceBoard[i];
+            Piece p = board.getBoard()[pieceRow[i]][pieceCol[i]];
+            if(p.canMove(pieceRow[i], pieceCol[i], moveRow[k], moveCol[k], board, board.prevMove, board.startingCoord)){
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+}
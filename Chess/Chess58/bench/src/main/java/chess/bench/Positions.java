@@ -0,0 +1,67 @@
+/**
+ * Positions is the corpus of realistic middlegame and endgame positions the benchmarks run over.
+ * Each position is written as the piece placement and side to move fields of a FEN string and is set up on a fresh Board with loadFen.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess.bench;
+
+import chess.Board;
+
+public final class Positions {
+
+    /**
+     * MIDDLEGAMES are positions from common openings after development, with most pieces still on the board
+     * ENDGAMES are positions with few pieces left, where kings and long slider moves dominate
+     */
+    public static final String[] MIDDLEGAMES = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w",
+            "r1bq1rk1/2p1bppp/p1np1n2/1p2p3/4P3/1BP2N1P/PP1P1PP1/RNBQR1K1 b",
+            "r1bq1rk1/pp1nbppp/2p1pn2/3p2B1/2PP4/2NBPN2/PP3PPP/R2QK2R w",
+            "r1b1kb1r/1pqp1ppp/p1n1pn2/8/3NP3/2N1B3/PPP1BPPP/R2QK2R w"
+    };
+    public static final String[] ENDGAMES = {
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w",
+            "8/8/4k3/3p4/3P4/4K3/8/8 w",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w",
+            "8/5pk1/6p1/3q4/8/6P1/5PK1/4Q3 w",
+            "4k3/8/8/3NB3/8/8/8/4K3 w"
+    };
+
+    private Positions(){
+    }
+
+    /**
+     * Gives every position of the corpus, middlegames first
+     * @return placement and side to move of each position
+     */
+    public static String[] all(){
+        String[] all = new String[MIDDLEGAMES.length + ENDGAMES.length];
+        System.arraycopy(MIDDLEGAMES, 0, all, 0, MIDDLEGAMES.length);
+        System.arraycopy(ENDGAMES, 0, all, MIDDLEGAMES.length, ENDGAMES.length);
+        return all;
+    }
+
+    /**
+     * Sets up a position on a new board
+     * @param position piece placement and side to move, e.g: "4k3/8/8/8/8/8/4P3/4K3 w"
+     * @return board holding the position
+     */
+    public static Board load(String position){
+        Board board = new Board();
+        //castling is kept wherever a king and rook are still on their starting tiles
+        board.loadFen(position + " KQkq - 0 1");
+        return board;
+    }
+
+    /**
+     * Tells whose turn it is in a position
+     * @param position piece placement and side to move
+     * @return true if white is to move
+     */
+    public static boolean isWhiteToMove(String position){
+        return position.charAt(position.length() - 1) == 'w';
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * AttackMap keeps track of how many pieces of each player attack every tile of a Board.
+ * Board tells it about every tile that changes, and it only recomputes the attacks of the piece on that tile and of the sliding pieces whose rays pass through it.
+ * That makes asking whether a tile is attacked, and so whether a king is in check, a single array read instead of a scan of the enemy pieces.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.util.Arrays;
+
+public final class AttackMap {
+
+    /**
+     * attacksFrom holds the tiles attacked by the piece standing on each square, 0 for an empty square
+     * owner holds the color index of the piece standing on each square, -1 for an empty square
+     * counts holds the number of attackers of each player on every tile as a bit-sliced counter: bit k of a tile's count is in plane
+     * color * PLANES + k. A player has at most 16 pieces, so five planes are enough, and adding or removing the attacks of a piece
+     * is a few word operations for all 64 tiles at once instead of one update per attacked tile.
+     */
+    private static final int PLANES = 5;
+    private final long[] attacksFrom = new long[64];
+    private final int[] owner = new int[64];
+    private final long[] counts = new long[2 * PLANES];
+
+    /**
+     * Constructor that creates the attack map of an empty board
+     */
+    public AttackMap(){
+        clear();
+    }
+
+    /**
+     * Copy constructor that creates an attack map with the same contents as another one
+     * @param other the attack map to copy
+     */
+    public AttackMap(AttackMap other){
+        System.arraycopy(other.attacksFrom, 0, attacksFrom, 0, attacksFrom.length);
+        System.arraycopy(other.owner, 0, owner, 0, owner.length);
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
+    }
+
+    /**
+     * Resets the map to an empty board
+     */
+    public void clear(){
+        Arrays.fill(attacksFrom, 0L);
+        Arrays.fill(owner, -1);
+        Arrays.fill(counts, 0L);
+    }
+
+    /**
+     * Tells if any piece of a player attacks a square
+     * @param square square index of the tile in question
+     * @param byWhite true to look for white attackers, false to look for black attackers
+     * @return true if the square is attacked
+     */
+    public boolean isAttacked(int square, boolean byWhite){
+        return ((getAttacked(byWhite ? Piece.WHITE : Piece.BLACK) >>> square) & 1) != 0;
+    }
+
+    /**
+     * Gives the number of pieces of a player attacking a square
+     * @param square square index of the tile in question
+     * @param byWhite true to count white attackers, false to count black attackers
+     * @return number of attackers
+     */
+    public int attackCount(int square, boolean byWhite){
+        int base = (byWhite ? Piece.WHITE : Piece.BLACK) * PLANES;
+        int count = 0;
+        for(int k = 0; k < PLANES; k++){
+            count |= (int) ((counts[base + k] >>> square) & 1) << k;
+        }
+        return count;
+    }
+
+    /**
+     * Gives every tile a player attacks
+     * @param color Piece.WHITE or Piece.BLACK
+     * @return bitboard of attacked tiles
+     */
+    public long getAttacked(int color){
+        int base = color * PLANES;
+        return counts[base] | counts[base + 1] | counts[base + 2] | counts[base + 3] | counts[base + 4];
+    }
+
+    /**
+     * Recomputes the whole map from the pieces on a board. Setting up a new position this way is cheaper than updating the map one tile at a time,
+     * because no slider has to be looked at again when the next piece lands on its ray.
+     * @param board board the map belongs to
+     */
+    void rebuild(Board board){
+        clear();
+        Piece[][] pieces = board.getBoard();
+        long occupied = board.getOccupied();
+        for(long left = occupied; left != 0; left &= left - 1){
+            int square = Long.numberOfTrailingZeros(left);
+            Piece piece = pieces[Bitboard.row(square)][Bitboard.col(square)];
+            int color = piece.isWhite() ? Piece.WHITE : Piece.BLACK;
+            long attacks = attacksOf(piece.getType(), piece.isWhite(), square, occupied);
+            attacksFrom[square] = attacks;
+            owner[square] = color;
+            add(color, attacks);
+        }
+    }
+
+    /**
+     * Updates the map after the piece on a tile changed. Board calls this from setBoard once its bitboards already show the new piece.
+     * @param square square index of the tile that changed
+     * @param piece piece now on the tile, or null if it is empty
+     * @param occupancyChanged false if one piece simply replaced another, in which case no slider ray changes
+     * @param board board the map belongs to
+     */
+    void update(int square, Piece piece, boolean occupancyChanged, Board board){
+        //the piece that was on the tile no longer attacks anything
+        if(owner[square] >= 0){
+            remove(owner[square], attacksFrom[square]);
+        }
+        attacksFrom[square] = 0L;
+        owner[square] = -1;
+
+        long occupied = board.getOccupied();
+        if(piece != null){
+            int color = piece.isWhite() ? Piece.WHITE : Piece.BLACK;
+            long attacks = attacksOf(piece.getType(), piece.isWhite(), square, occupied);
+            attacksFrom[square] = attacks;
+            owner[square] = color;
+            add(color, attacks);
+        }
+        if(!occupancyChanged){
+            return;
+        }
+
+        //sliders whose rays reach this tile now stop here or pass through, so their attacks change
+        long queens = board.getPieceBitboard(Piece.WHITE, Piece.QUEEN) | board.getPieceBitboard(Piece.BLACK, Piece.QUEEN);
+        long rookLike = board.getPieceBitboard(Piece.WHITE, Piece.ROOK) | board.getPieceBitboard(Piece.BLACK, Piece.ROOK) | queens;
+        long bishopLike = board.getPieceBitboard(Piece.WHITE, Piece.BISHOP) | board.getPieceBitboard(Piece.BLACK, Piece.BISHOP) | queens;
+        long sliders = ((Bitboard.rookAttacks(square, occupied) & rookLike) | (Bitboard.bishopAttacks(square, occupied) & bishopLike)) & ~(1L << square);
+        while(sliders != 0){
+            int from = Long.numberOfTrailingZeros(sliders);
+            sliders &= sliders - 1;
+            int color = owner[from];
+            long before = attacksFrom[from];
+            long after = slidingAttacks(from, (rookLike >>> from & 1) != 0, (bishopLike >>> from & 1) != 0, occupied);
+            remove(color, before & ~after);
+            add(color, after & ~before);
+            attacksFrom[from] = after;
+        }
+    }
+
+    /**
+     * Gives the tiles a piece attacks from a square
+     * @param type piece type index
+     * @param white true for a white piece
+     * @param square square index of the piece
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of attacked tiles
+     */
+    private static long attacksOf(int type, boolean white, int square, long occupied){
+        switch(type){
+            case Piece.PAWN:
+                return Bitboard.pawnAttacks(1L << square, white);
+            case Piece.KNIGHT:
+                return Bitboard.knightAttacksFrom(square);
+            case Piece.BISHOP:
+                return Bitboard.bishopAttacks(square, occupied);
+            case Piece.ROOK:
+                return Bitboard.rookAttacks(square, occupied);
+            case Piece.QUEEN:
+                return Bitboard.queenAttacks(square, occupied);
+            default:
+                return Bitboard.kingAttacksFrom(square);
+        }
+    }
+
+    /**
+     * Gives the tiles a sliding piece attacks from a square
+     * @param square square index of the piece
+     * @param straight true if the piece moves along rows and columns
+     * @param diagonal true if the piece moves along diagonals
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of attacked tiles
+     */
+    private static long slidingAttacks(int square, boolean straight, boolean diagonal, long occupied){
+        long attacks = 0L;
+        if(straight){
+            attacks |= Bitboard.rookAttacks(square, occupied);
+        }
+        if(diagonal){
+            attacks |= Bitboard.bishopAttacks(square, occupied);
+        }
+        return attacks;
+    }
+
+    /**
+     * Adds one attacker of a player to every tile in a bitboard, rippling the carry up through the counter planes
+     * @param color Piece.WHITE or Piece.BLACK
+     * @param tiles bitboard of tiles that gained an attacker
+     */
+    private void add(int color, long tiles){
+        long carry = tiles;
+        for(int k = color * PLANES; carry != 0; k++){
+            long plane = counts[k];
+            counts[k] = plane ^ carry;
+            carry &= plane;
+        }
+    }
+
+    /**
+     * Removes one attacker of a player from every tile in a bitboard, rippling the borrow up through the counter planes
+     * @param color Piece.WHITE or Piece.BLACK
+     * @param tiles bitboard of tiles that lost an attacker
+     */
+    private void remove(int color, long tiles){
+        long borrow = tiles;
+        for(int k = color * PLANES; borrow != 0; k++){
+            long plane = counts[k];
+            counts[k] = plane ^ borrow;
+            borrow &= ~plane;
+        }
+    }
+}
@@ -7,17 +7,14 @@
 
 package chess;
 
-import java.util.ArrayList;
-
 public class Bishop extends Piece {
 
     /**
-     * constructor calls the superclass Piece constructor to assign color and name to each piece
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece: "B" for Bishop
+     * constructor calls the superclass Piece constructor to assign color and type to the piece. It is only called once per color, for the shared pieces of Piece.of
+     * @param color Piece.WHITE or Piece.BLACK
      */
-    public Bishop(String color, String name){
-        super(color,name);
+    Bishop(int color){
+        super(color, BISHOP);
     }
 
     /**
@@ -61,126 +58,63 @@ public class Bishop extends Piece {
 
         //if trying to attk same color piece
         if(sPiece != null && dPiece != null){
-            if(sPiece.getColor().equals(dPiece.getColor())){
+            if(sPiece.isWhite() == dPiece.isWhite()){
                 return false;
             }
         }
-        //1.is bishop going up and right?
-        //2.is bishop going up and left?
-        //3.is bishop going down and right?
-        //4.is bishop going down and left?
-        //going to the right means dCol > sCol and left means dCol< sCol.
-        //going up means sRow > dRow and down means sRow < dRow.
-
-        //going up
-        if(sRow > dRow){
-            //up and right
-            if (dCol > sCol){
-                int tempCol = dCol - 1;
-                for(int tempRow = dRow + 1; tempRow < sRow; tempRow++){
-                    Piece tempPiece = gameBoard[tempRow][tempCol];
-                    if(tempPiece!= null){
-                        return false;
-                    }
-                    tempCol--;
-                }
-            }
-
-            //up and left
-            else if(dCol < sCol){
-                int tempCol = dCol + 1;
-                for(int tempRow = dRow + 1; tempRow < sRow; tempRow++){
-                    Piece tempPiece = gameBoard[tempRow][tempCol];
-                    if(tempPiece!= null){
-                        return false;
-                    }
-                    tempCol++;
-                }
-            }
-
-        }
-
-        //going down
-        else if(sRow < dRow){
-            int i = 0, j = 0;
-            //if right
-            if(dCol> sCol){
-                int tempCol = dCol - 1;
-                for(int tempRow = dRow - 1; tempRow > sRow; tempRow--){
-                    Piece tempPiece = gameBoard[tempRow][tempCol];
-                    if(tempPiece!= null){
-                        return false;
-                    }
-                    tempCol--;
-                }
-            }
-
-            //if left
-            else if(dCol < sCol){
-                int tempCol = dCol + 1;
-                for(int tempRow = dRow - 1; tempRow > sRow; tempRow--){
-                    Piece tempPiece = gameBoard[tempRow][tempCol];
-                    if(tempPiece!= null){
-                        return false;
-                    }
-                    tempCol++;
-                }
-            }
-        }
-
-        return true;
+        //every tile on the diagonal between the start and the destination has to be empty, looked up in the precomputed between table
+        return (Bitboard.between(Bitboard.square(sRow, sCol), Bitboard.square(dRow, dCol)) & board.getOccupied()) == 0;
     }
 
 
 
 
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the viable moves that a piece can make into a move buffer as packed ints
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
      */
-
     @Override
-    public ArrayList<ArrayList<Integer>> listMoves(int sRow, int sCol, Board board) {
-        ArrayList<ArrayList<Integer>> moves = new ArrayList<>();
-        for (int dRow = sRow, dCol = sCol; dRow >= 0 && dCol >= 0; dRow--, dCol--) {
-            if (canMove(sRow, sCol, dRow, dCol, board, null, null) && isPathClear(sRow,sCol,dRow,dCol,board)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(dRow);
-                move.add(dCol);
-                moves.add(move);
-            }
-        }
-        for (int dRow = sRow, dCol = sCol; dRow <= 7 && dCol <= 7; dRow++, dCol++) {
-            if (canMove(sRow, sCol, dRow, dCol, board, null, null) && isPathClear(sRow,sCol,dRow,dCol,board)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(dRow);
-                move.add(dCol);
-                moves.add(move);
-            }
-        }
-        for (int dRow = sRow, dCol = sCol; dRow >= 0 && dCol <= 7; dRow--, dCol++) {
-            if (canMove(sRow, sCol, dRow, dCol, board, null, null) && isPathClear(sRow,sCol,dRow,dCol,board)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(dRow);
-                move.add(dCol);
-                moves.add(move);
-            }
-        }
-        for (int dRow = sRow, dCol = sCol; dRow <= 7 && dCol >= 0; dRow++, dCol--) {
-            if (canMove(sRow, sCol, dRow, dCol, board, null, null) && isPathClear(sRow,sCol,dRow,dCol,board)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(dRow);
-                move.add(dCol);
-                moves.add(move);
-            }
-        }
-        return moves;
+    public int listMoves(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        int own = isWhite() ? WHITE : BLACK;
+        long targets = Bitboard.bishopAttacks(from, board.getOccupied()) & ~board.getColorBitboard(own);
+        return addMoves(from, targets, board.getColorBitboard(own ^ 1), moves, count);
     }
 
+    /**
+     * Writes the captures the piece can make into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listCaptures(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        long enemies = board.getColorBitboard(isWhite() ? BLACK : WHITE);
+        return addMoves(from, Bitboard.bishopAttacks(from, board.getOccupied()) & enemies, enemies, moves, count);
+    }
 
-
+    /**
+     * Writes the moves of the piece that do not capture into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listQuiets(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        return addMoves(from, Bitboard.bishopAttacks(from, board.getOccupied()) & ~board.getOccupied(), 0L, moves, count);
+    }
 
 }
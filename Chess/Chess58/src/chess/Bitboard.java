@@ -0,0 +1,221 @@
+/**
+ * Bitboard contains the constants and helper methods used to work with 64-bit bitboards.
+ * A bitboard is a long where every bit stands for one tile of the chessboard. Bit (row * 8 + col) is set when the tile at board[row][col] is part of the set,
+ * so square 0 is a8 and square 63 is h1, the same order the Piece[][] grid in Board uses.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public final class Bitboard {
+
+    /**
+     * FILE_A through FILE_H are masks of every tile in a column, used to stop shifted bitboards from wrapping around the edge of the board
+     */
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+
+    /**
+     * KNIGHT_ATTACKS and KING_ATTACKS hold, for every square, the tiles a knight or king standing there attacks.
+     * They are filled once when the class is loaded, so looking up a leaper's moves is a single array read.
+     */
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+
+    /**
+     * RAYS holds, for each of the eight directions and every square, all tiles from that square to the edge of the board.
+     * The first four directions walk towards higher square indexes and the last four towards lower ones, which decides whether
+     * the nearest blocker on a ray is its lowest or its highest set bit.
+     * BETWEEN holds, for every pair of squares on the same row, column or diagonal, the tiles strictly between them (stored as from * 64 + to).
+     */
+    private static final int[] RAY_ROW_STEP = { 1, 0, 1, 1, -1, 0, -1, -1 };
+    private static final int[] RAY_COL_STEP = { 0, 1, 1, -1, 0, -1, -1, 1 };
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[] BETWEEN = new long[64 * 64];
+
+    static {
+        for(int square = 0; square < 64; square++){
+            KNIGHT_ATTACKS[square] = knightAttacks(1L << square);
+            KING_ATTACKS[square] = kingAttacks(1L << square);
+            for(int dir = 0; dir < 8; dir++){
+                long between = 0L;
+                int row = row(square) + RAY_ROW_STEP[dir];
+                int col = col(square) + RAY_COL_STEP[dir];
+                while(row >= 0 && row <= 7 && col >= 0 && col <= 7){
+                    int to = square(row, col);
+                    RAYS[dir][square] |= 1L << to;
+                    BETWEEN[(square << 6) | to] = between;
+                    between |= 1L << to;
+                    row += RAY_ROW_STEP[dir];
+                    col += RAY_COL_STEP[dir];
+                }
+            }
+        }
+    }
+
+    private Bitboard(){
+    }
+
+    /**
+     * Converts a row and column of the board array into a square index
+     * @param row row of the board array
+     * @param col column of the board array
+     * @return square index from 0 to 63
+     */
+    public static int square(int row, int col){
+        return (row << 3) | col;
+    }
+
+    /**
+     * Gives the row of the board array that a square index is on
+     * @param square square index from 0 to 63
+     * @return row of the board array
+     */
+    public static int row(int square){
+        return square >>> 3;
+    }
+
+    /**
+     * Gives the column of the board array that a square index is on
+     * @param square square index from 0 to 63
+     * @return column of the board array
+     */
+    public static int col(int square){
+        return square & 7;
+    }
+
+    /**
+     * Gives every tile a knight standing on any of the tiles in the bitboard can jump to
+     * @param knights bitboard of knight locations
+     * @return bitboard of attacked tiles
+     */
+    public static long knightAttacks(long knights){
+        long notA = ~FILE_A;
+        long notH = ~FILE_H;
+        long notAB = ~(FILE_A | FILE_B);
+        long notGH = ~(FILE_G | FILE_H);
+        return ((knights << 17) & notA) | ((knights << 15) & notH)
+                | ((knights << 10) & notAB) | ((knights << 6) & notGH)
+                | ((knights >>> 17) & notH) | ((knights >>> 15) & notA)
+                | ((knights >>> 10) & notGH) | ((knights >>> 6) & notAB);
+    }
+
+    /**
+     * Gives every tile a knight on the given square attacks, from the precomputed table
+     * @param square square index of the knight
+     * @return bitboard of attacked tiles
+     */
+    public static long knightAttacksFrom(int square){
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Gives every tile a king on the given square attacks, from the precomputed table
+     * @param square square index of the king
+     * @return bitboard of attacked tiles
+     */
+    public static long kingAttacksFrom(int square){
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Gives every tile a king standing on any of the tiles in the bitboard can step to
+     * @param kings bitboard of king locations
+     * @return bitboard of attacked tiles
+     */
+    public static long kingAttacks(long kings){
+        long sides = ((kings << 1) & ~FILE_A) | ((kings >>> 1) & ~FILE_H);
+        long row = kings | sides;
+        return sides | (row << 8) | (row >>> 8);
+    }
+
+    /**
+     * Gives every tile the pawns in the bitboard attack diagonally. White pawns attack towards row 0, black pawns towards row 7.
+     * @param pawns bitboard of pawn locations
+     * @param white true if the pawns are white, false if they are black
+     * @return bitboard of attacked tiles
+     */
+    public static long pawnAttacks(long pawns, boolean white){
+        if(white){
+            return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+        }
+        return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+    }
+
+    /**
+     * Gives every tile a rook on the given square attacks. Each ray stops at the first occupied tile, which is included.
+     * @param square square index of the rook
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of attacked tiles
+     */
+    public static long rookAttacks(int square, long occupied){
+        return positiveRay(0, square, occupied) | positiveRay(1, square, occupied)
+                | negativeRay(4, square, occupied) | negativeRay(5, square, occupied);
+    }
+
+    /**
+     * Gives every tile a bishop on the given square attacks. Each ray stops at the first occupied tile, which is included.
+     * @param square square index of the bishop
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of attacked tiles
+     */
+    public static long bishopAttacks(int square, long occupied){
+        return positiveRay(2, square, occupied) | positiveRay(3, square, occupied)
+                | negativeRay(6, square, occupied) | negativeRay(7, square, occupied);
+    }
+
+    /**
+     * Gives every tile a queen on the given square attacks
+     * @param square square index of the queen
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of attacked tiles
+     */
+    public static long queenAttacks(int square, long occupied){
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Gives the tiles strictly between two squares on the same row, column or diagonal
+     * @param from first square index
+     * @param to second square index
+     * @return bitboard of the tiles in between, or 0 if the squares are next to each other or not in line
+     */
+    public static long between(int from, int to){
+        return BETWEEN[(from << 6) | to];
+    }
+
+    /**
+     * Gives the tiles of a ray that walks towards higher square indexes, cut off after the first occupied tile
+     * @param dir direction index from 0 to 3
+     * @param square square index the ray starts from (not included)
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of the tiles on the ray
+     */
+    private static long positiveRay(int dir, int square, long occupied){
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if(blockers == 0){
+            return ray;
+        }
+        return ray ^ RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+    }
+
+    /**
+     * Gives the tiles of a ray that walks towards lower square indexes, cut off after the first occupied tile
+     * @param dir direction index from 4 to 7
+     * @param square square index the ray starts from (not included)
+     * @param occupied bitboard of every occupied tile
+     * @return bitboard of the tiles on the ray
+     */
+    private static long negativeRay(int dir, int square, long occupied){
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if(blockers == 0){
+            return ray;
+        }
+        return ray ^ RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+    }
+}
@@ -6,7 +6,9 @@
 
 package chess;
 
-import java.util.ArrayList;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class Board {
 
@@ -15,55 +17,570 @@ public class Board {
      * letters is an array that makes finding the index of the column easier
      * prevMove is a Piece that stores the most previously moved piece
      * startingCoord stores the coordinates of prevMove
+     * pieceBitboards has one bitboard per piece type and color, indexed by Piece.getIndex()
+     * colorBitboards has the occupancy of each player, indexed by Piece.WHITE and Piece.BLACK
+     * occupied is the bitboard of every tile that has a piece on it
+     * attacks counts the attackers of each player on every tile and is updated by setBoard, so check tests are a lookup
+     * middlegameScore and endgameScore are the sums of Evaluation values of every piece on the board, white minus black, and phase is the sum of their phase weights.
+     * material holds each player's material in centipawns. All of them are updated by setBoard so evaluating a position never walks the board.
+     * moveBuffer is reused by hasLegalMove and pieceMoveBuffer by isPseudoLegal so listing moves does not allocate
+     * zobristKey is the hash of the current position. It is updated by setBoard and after every move, never recomputed.
+     * whiteToMove, castlingRights and enPassantFile are the parts of the position that are not on the grid but are part of the key
+     * unmoved is the bitboard of the tiles whose piece has not moved since it was set up. Pieces are shared (see Piece.of), so this is kept here and not on them.
+     * halfmoveClock counts the moves since the last capture or pawn move and fullmoveNumber starts at 1 and goes up after every black move, just like the last two FEN fields
+     * the undo arrays form the stack used by makeMove and unmakeMove. Entry i holds the move made at depth i, the moved and captured pieces,
+     * the last moved piece and its coordinates before the move, the unmoved bitboard and the state bits (see the UNDO_ constants) that the move overwrote.
+     * The halfmove clock before the move is kept in the state above UNDO_CLOCK_SHIFT.
+     * They start at INITIAL_UNDO_SIZE entries and only grow if a line ever gets deeper than that.
+     * PACKED_SIZE is the most bytes writePacked needs: the occupied bitboard, half a byte for each of at most 32 pieces and three shorts
      */
 
-    private static Piece[][] board = new Piece[8][8];
+    public static final int WHITE_KING_SIDE = 1, WHITE_QUEEN_SIDE = 2, BLACK_KING_SIDE = 4, BLACK_QUEEN_SIDE = 8;
+    private static final int INITIAL_UNDO_SIZE = 256;
+    private static final int UNDO_WHITE_TO_MOVE = 1 << 8, UNDO_CLOCK_SHIFT = 16;
+    private static final long HOME_ROWS = 0xFFFF00000000FFFFL;
+    private static final String FEN_PIECES = "PNBRQKpnbrqk";
+    public static final int PACKED_SIZE = 30;
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final Piece[][] board = new Piece[8][8];
+    private final long[] pieceBitboards = new long[12];
+    private final long[] colorBitboards = new long[2];
+    private long occupied = 0L;
+    private final AttackMap attacks;
+    private int middlegameScore = 0;
+    private int endgameScore = 0;
+    private int phase = 0;
+    private final int[] material = new int[2];
     private static final String[] letters = { "a", "b", "c", "d", "e", "f", "g", "h" };
     public Piece prevMove = null;
     public int [] startingCoord= {0,0,0,0};
-    private Piece prevStart;
-    private Piece prevDest;
-    private int[] prevStartPos;
-    private int[] prevDestPos;
+    private final int[] moveBuffer = new int[Move.MAX_MOVES];
+    private final int[] pieceMoveBuffer = new int[Move.MAX_MOVES];
+    private long zobristKey = 0L;
+    private boolean whiteToMove = true;
+    private int castlingRights = 0;
+    private int enPassantFile = -1;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    private long unmoved = 0L;
+    private int undoCount = 0;
+    private int[] undoMoves = new int[INITIAL_UNDO_SIZE];
+    private Piece[] undoMoved = new Piece[INITIAL_UNDO_SIZE];
+    private Piece[] undoCaptured = new Piece[INITIAL_UNDO_SIZE];
+    private Piece[] undoPrevMove = new Piece[INITIAL_UNDO_SIZE];
+    private int[] undoState = new int[INITIAL_UNDO_SIZE];
+    private long[] undoUnmoved = new long[INITIAL_UNDO_SIZE];
+    private int[] undoStartingCoord = new int[INITIAL_UNDO_SIZE * 4];
 
     /**
      * Contructor that initializes board and makes game ready to play by calling initializeBoardPieces()
+     * Every Board owns its own grid and bitboards, so many games can be played at the same time.
      */
     public Board()
     {
+        attacks = new AttackMap();
         initializeBoardPieces();
     }
 
+    /**
+     * Copy constructor that creates an independent board with the same position as another board.
+     * Pieces never change, so the grid is copied by reference and moves made on the copy never change the original. The copy starts with no move to undo.
+     * @param other the board to copy
+     */
+    public Board(Board other)
+    {
+        for(int i = 0; i < 8; i++){
+            System.arraycopy(other.board[i], 0, board[i], 0, 8);
+        }
+        System.arraycopy(other.pieceBitboards, 0, pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(other.colorBitboards, 0, colorBitboards, 0, colorBitboards.length);
+        occupied = other.occupied;
+        attacks = new AttackMap(other.attacks);
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        System.arraycopy(other.material, 0, material, 0, material.length);
+        zobristKey = other.zobristKey;
+        whiteToMove = other.whiteToMove;
+        castlingRights = other.castlingRights;
+        enPassantFile = other.enPassantFile;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        unmoved = other.unmoved;
+        System.arraycopy(other.startingCoord, 0, startingCoord, 0, startingCoord.length);
+        prevMove = other.prevMove;
+    }
+
 
     /**
      * Method to fill in the chessboard with white and black pieces and make game ready for play
      */
     public void initializeBoardPieces(){
+        clear();
+
         //First add white pawns to rank 2 (index of row is 6 in array though) and black pawns to rank 7 (row 1 in array though)
         for(int i = 0; i < 8; i++) {
-            board[6][i] = new Pawn("w", "p");
-            board[1][i] = new Pawn("b", "p");
-        }
-        board[7][0] = new Rook("w","R");
-        board[7][1] = new Knight("w","N");
-        board[7][2] = new Bishop("w","B");
-        board[7][3] = new Queen("w","Q");
-        board[7][4] = new King("w","K");
-        board[7][5] = new Bishop("w","B");
-        board[7][6] = new Knight("w","N");
-        board[7][7] = new Rook("w","R");
-        board[0][0] = new Rook("b","R");
-        board[0][1] = new Knight("b","N");
-        board[0][2] = new Bishop("b","B");
-        board[0][3] = new Queen("b","Q");
-        board[0][4] = new King("b","K");
-        board[0][5] = new Bishop("b","B");
-        board[0][6] = new Knight("b","N");
-        board[0][7] = new Rook("b","R");
+            placePiece(6, i, Piece.of(Piece.PAWN, true));
+            placePiece(1, i, Piece.of(Piece.PAWN, false));
+        }
+        int[] backRow = { Piece.ROOK, Piece.KNIGHT, Piece.BISHOP, Piece.QUEEN, Piece.KING, Piece.BISHOP, Piece.KNIGHT, Piece.ROOK };
+        for(int i = 0; i < 8; i++) {
+            placePiece(7, i, Piece.of(backRow[i], true));
+            placePiece(0, i, Piece.of(backRow[i], false));
+        }
+        //nothing has moved yet
+        unmoved = HOME_ROWS;
+        //the pieces were placed without the attack map, so build it once now
+        attacks.rebuild(this);
+        setState(true, computeCastlingRights(), -1);
+    }
+
+    /**
+     * Empties the board and forgets everything about the earlier game, so the grid, bitboards, totals, key and undo stack all start from nothing
+     */
+    private void clear(){
+        for(int i = 0; i < 8; i++) {
+            for(int j = 0; j < 8; j++) {
+                board[i][j] = null;
+            }
+        }
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorBitboards, 0L);
+        occupied = 0L;
+        attacks.clear();
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        Arrays.fill(material, 0);
+        zobristKey = 0L;
+        whiteToMove = true;
+        castlingRights = 0;
+        enPassantFile = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        unmoved = 0L;
+        prevMove = null;
+        Arrays.fill(startingCoord, 0);
+        Arrays.fill(undoMoved, 0, undoCount, null);
+        Arrays.fill(undoCaptured, 0, undoCount, null);
+        Arrays.fill(undoPrevMove, 0, undoCount, null);
+        undoCount = 0;
+    }
+
+    /**
+     * Sets up the position described by a FEN string, e.g: Board.START_FEN
+     * @param fen the FEN string
+     * @throws IllegalArgumentException if the string is not a valid FEN position; the board is then left in the starting position
+     */
+    public void loadFen(CharSequence fen){
+        int end = loadFen(fen, 0);
+        for(; end < fen.length(); end++){
+            if(fen.charAt(end) != ' '){
+                initializeBoardPieces();
+                throw new IllegalArgumentException("unexpected text after FEN: " + fen);
+            }
+        }
+    }
+
+    /**
+     * Sets up the position described by the FEN found at a given index of some text, reading it straight from the characters without splitting it into strings.
+     * The four position fields are required, the halfmove clock and fullmove number are read only if they are there, so EPD style positions load too.
+     * Reading stops at the end of the FEN, so a caller can go on with whatever follows it (e.g: the moves of a UCI position command).
+     * @param text text holding the FEN
+     * @param start index of the first character of the FEN; spaces before it are skipped
+     * @return index just after the last character of the FEN that was read
+     * @throws IllegalArgumentException if the text is not a valid FEN position; the board is then left in the starting position
+     */
+    public int loadFen(CharSequence text, int start){
+        int end = parseFen(text, start);
+        if(end < 0){
+            initializeBoardPieces();
+            throw new IllegalArgumentException("invalid FEN: " + text.subSequence(Math.min(start, text.length()), text.length()));
+        }
+        return end;
+    }
+
+    /**
+     * Does the work of loadFen
+     * @param text text holding the FEN
+     * @param start index of the first character of the FEN
+     * @return index just after the FEN, or -1 if it is not valid
+     */
+    private int parseFen(CharSequence text, int start){
+        int length = text.length();
+        int k = skipSpaces(text, start);
+        clear();
+
+        //piece placement, rank 8 (row 0) first
+        int row = 0;
+        int col = 0;
+        for(; k < length && text.charAt(k) != ' '; k++){
+            char c = text.charAt(k);
+            if(c == '/'){
+                if(col != 8 || ++row > 7){
+                    return -1;
+                }
+                col = 0;
+            }
+            else if(c >= '1' && c <= '8'){
+                col += c - '0';
+                if(col > 8){
+                    return -1;
+                }
+            }
+            else{
+                int index = FEN_PIECES.indexOf(c);
+                if(index < 0 || col > 7){
+                    return -1;
+                }
+                boolean white = index < 6;
+                //pieces count as moved unless they are pawns on their starting row; castling rights below bring back the kings and rooks
+                if(index % 6 == Piece.PAWN && row == (white ? 6 : 1)){
+                    unmoved |= 1L << Bitboard.square(row, col);
+                }
+                placePiece(row, col++, Piece.of(index % 6, white));
+            }
+        }
+        //every king is needed, since check is found by looking at the tile the king is on
+        if(row != 7 || col != 8 || Long.bitCount(pieceBitboards[Piece.KING]) != 1 || Long.bitCount(pieceBitboards[6 + Piece.KING]) != 1){
+            return -1;
+        }
+        attacks.rebuild(this);
+
+        //side to move
+        k = skipSpaces(text, k);
+        if(k >= length || (text.charAt(k) != 'w' && text.charAt(k) != 'b')){
+            return -1;
+        }
+        boolean white = text.charAt(k++) == 'w';
+
+        //castling rights, only kept where the king and rook are actually still at home
+        k = skipSpaces(text, k);
+        if(k >= length){
+            return -1;
+        }
+        if(text.charAt(k) == '-'){
+            k++;
+        }
+        else{
+            for(; k < length && text.charAt(k) != ' '; k++){
+                switch(text.charAt(k)){
+                    case 'K':
+                        setUnmoved(7, 4, 7);
+                        break;
+                    case 'Q':
+                        setUnmoved(7, 4, 0);
+                        break;
+                    case 'k':
+                        setUnmoved(0, 4, 7);
+                        break;
+                    case 'q':
+                        setUnmoved(0, 4, 0);
+                        break;
+                    default:
+                        return -1;
+                }
+            }
+        }
+
+        //en passant square, which is where the pawn that just moved two tiles passed over
+        k = skipSpaces(text, k);
+        if(k >= length){
+            return -1;
+        }
+        int file = -1;
+        if(text.charAt(k) == '-'){
+            k++;
+        }
+        else{
+            if(k + 1 >= length){
+                return -1;
+            }
+            int epCol = text.charAt(k) - 'a';
+            char rank = text.charAt(k + 1);
+            k += 2;
+            if(epCol < 0 || epCol > 7 || rank != (white ? '6' : '3')){
+                return -1;
+            }
+            if(!setDoublePush(white, epCol)){
+                return -1;
+            }
+            file = capturableFile(white, epCol);
+        }
+        setState(white, computeCastlingRights(), file);
+
+        //the two move counters are optional
+        int next = skipSpaces(text, k);
+        if(next < length && isDigit(text.charAt(next))){
+            int clock = 0;
+            for(k = next; k < length && isDigit(text.charAt(k)); k++){
+                clock = clock * 10 + text.charAt(k) - '0';
+            }
+            halfmoveClock = clock;
+            next = skipSpaces(text, k);
+            if(next < length && isDigit(text.charAt(next))){
+                int number = 0;
+                for(k = next; k < length && isDigit(text.charAt(k)); k++){
+                    number = number * 10 + text.charAt(k) - '0';
+                }
+                fullmoveNumber = Math.max(number, 1);
+            }
+        }
+        if(k < length && text.charAt(k) != ' '){
+            return -1;
+        }
+        return k;
+    }
+
+    /**
+     * Makes the pawn of the player who just moved look as if it had just moved two tiles, so the side to move may take it en passant
+     * @param white true if white is to move
+     * @param col column of the pawn
+     * @return false if no such pawn stands one tile past the square it passed over, seen from the side that moved it
+     */
+    private boolean setDoublePush(boolean white, int col){
+        int pawnRow = white ? 3 : 4;
+        Piece pawn = board[pawnRow][col];
+        if(pawn == null || pawn.getType() != Piece.PAWN || pawn.isWhite() == white){
+            return false;
+        }
+        prevMove = pawn;
+        startingCoord[0] = white ? 1 : 6;
+        startingCoord[1] = col;
+        startingCoord[2] = pawnRow;
+        startingCoord[3] = col;
+        return true;
+    }
+
+    /**
+     * Gives the en passant file of the position key after a double push: the key only holds the file when a pawn is there to take, the same as updateState
+     * @param white true if white is to move
+     * @param col column of the pawn that moved two tiles
+     * @return col if a pawn of the side to move stands beside it, else -1
+     */
+    private int capturableFile(boolean white, int col){
+        long bit = 1L << Bitboard.square(white ? 3 : 4, col);
+        long beside = ((bit << 1) & ~Bitboard.FILE_A) | ((bit >>> 1) & ~Bitboard.FILE_H);
+        return (beside & getPieceBitboard(white ? Piece.WHITE : Piece.BLACK, Piece.PAWN)) != 0 ? col : -1;
+    }
+
+    /**
+     * Marks a king and one of its rooks as never moved, if they are standing on the given tiles
+     * @param row row the king and rook start on
+     * @param kingCol column of the king
+     * @param rookCol column of the rook
+     */
+    private void setUnmoved(int row, int kingCol, int rookCol){
+        int color = row == 7 ? Piece.WHITE : Piece.BLACK;
+        Piece king = board[row][kingCol];
+        Piece rook = board[row][rookCol];
+        if(king != null && rook != null && king.getIndex() == color * 6 + Piece.KING && rook.getIndex() == color * 6 + Piece.ROOK){
+            unmoved |= (1L << Bitboard.square(row, kingCol)) | (1L << Bitboard.square(row, rookCol));
+        }
+    }
+
+    /**
+     * Finds the first character at or after an index that is not a space
+     * @param text text to look in
+     * @param k index to start at
+     * @return index of that character, or the length of the text if there is none
+     */
+    private static int skipSpaces(CharSequence text, int k){
+        while(k < text.length() && text.charAt(k) == ' '){
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Checks if a character is one of the digits 0 to 9
+     * @param c character to check
+     * @return true if it is a digit
+     */
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Appends the FEN string of the current position to a builder, so the same builder can be reused for many positions without making new strings.
+     * The en passant square is only written when a pawn is there to take it, the same rule the position key uses.
+     * @param out builder the FEN is appended to
+     * @return the same builder
+     */
+    public StringBuilder writeFen(StringBuilder out){
+        for(int i = 0; i < 8; i++){
+            int empty = 0;
+            for(int j = 0; j < 8; j++){
+                Piece piece = board[i][j];
+                if(piece == null){
+                    empty++;
+                    continue;
+                }
+                if(empty > 0){
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(FEN_PIECES.charAt(piece.getIndex()));
+            }
+            if(empty > 0){
+                out.append((char) ('0' + empty));
+            }
+            if(i < 7){
+                out.append('/');
+            }
+        }
+        out.append(whiteToMove ? " w " : " b ");
+        if(castlingRights == 0){
+            out.append('-');
+        }
+        else{
+            if((castlingRights & WHITE_KING_SIDE) != 0){
+                out.append('K');
+            }
+            if((castlingRights & WHITE_QUEEN_SIDE) != 0){
+                out.append('Q');
+            }
+            if((castlingRights & BLACK_KING_SIDE) != 0){
+                out.append('k');
+            }
+            if((castlingRights & BLACK_QUEEN_SIDE) != 0){
+                out.append('q');
+            }
+        }
+        out.append(' ');
+        if(enPassantFile < 0){
+            out.append('-');
+        }
+        else{
+            out.append((char) ('a' + enPassantFile)).append(whiteToMove ? '6' : '3');
+        }
+        return out.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+    }
+
+    /**
+     * Gives the FEN string of the current position
+     * @return FEN string
+     */
+    public String toFen(){
+        return writeFen(new StringBuilder(90)).toString();
+    }
+
+    /**
+     * Writes the position in at most PACKED_SIZE bytes, for keeping many games that nobody is looking at.
+     * The bytes are the occupied bitboard, then the piece index (see Piece.getIndex) of every occupied tile in square order, two to a byte,
+     * then a short holding the side to move, the castling rights and the en passant file plus one, and then the halfmove clock and the fullmove number as shorts.
+     * Like the FEN, this is the position only; the moves that led to it are not kept, so nothing is left to undo once it is loaded again.
+     * @param out buffer the bytes are put into, starting at its position
+     * @throws java.nio.BufferOverflowException if the buffer does not have room for them
+     */
+    public void writePacked(ByteBuffer out){
+        out.putLong(occupied);
+        int count = 0;
+        int pending = 0;
+        for(long bits = occupied; bits != 0; bits &= bits - 1){
+            int square = Long.numberOfTrailingZeros(bits);
+            int index = board[Bitboard.row(square)][Bitboard.col(square)].getIndex();
+            if((count++ & 1) == 0){
+                pending = index;
+            }
+            else{
+                out.put((byte) (pending | index << 4));
+            }
+        }
+        if((count & 1) != 0){
+            out.put((byte) pending);
+        }
+        out.putShort((short) ((whiteToMove ? 1 : 0) | castlingRights << 1 | (enPassantFile + 1) << 5));
+        out.putShort((short) Math.min(halfmoveClock, 0xFFFF));
+        out.putShort((short) Math.min(fullmoveNumber, 0xFFFF));
+    }
+
+    /**
+     * Sets up a position written by writePacked
+     * @param in buffer holding the bytes, starting at its position, which is moved just past them
+     * @throws IllegalArgumentException if the bytes are not a valid position; the board is then left in the starting position
+     */
+    public void loadPacked(ByteBuffer in){
+        boolean valid;
+        try{
+            valid = unpack(in);
+        }
+        catch(BufferUnderflowException e){
+            valid = false;
+        }
+        if(!valid){
+            initializeBoardPieces();
+            throw new IllegalArgumentException("invalid packed position");
+        }
+    }
+
+    /**
+     * Does the work of loadPacked
+     * @param in buffer holding the bytes
+     * @return false if they are not a valid position
+     */
+    private boolean unpack(ByteBuffer in){
+        clear();
+        long squares = in.getLong();
+        if(Long.bitCount(squares) > 32){
+            return false;
+        }
+        int count = 0;
+        int pending = 0;
+        for(long bits = squares; bits != 0; bits &= bits - 1){
+            int square = Long.numberOfTrailingZeros(bits);
+            if((count++ & 1) == 0){
+                pending = in.get() & 0xFF;
+            }
+            else{
+                pending >>>= 4;
+            }
+            int index = pending & 15;
+            if(index > 11){
+                return false;
+            }
+            int row = Bitboard.row(square);
+            boolean white = index < 6;
+            //the same as a FEN: a pawn on its starting row has not moved, and the castling rights below bring back the kings and rooks
+            if(index % 6 == Piece.PAWN && row == (white ? 6 : 1)){
+                unmoved |= 1L << square;
+            }
+            placePiece(row, Bitboard.col(square), Piece.of(index % 6, white));
+        }
+        if(Long.bitCount(pieceBitboards[Piece.KING]) != 1 || Long.bitCount(pieceBitboards[6 + Piece.KING]) != 1){
+            return false;
+        }
+        attacks.rebuild(this);
+
+        int state = in.getShort();
+        boolean white = (state & 1) != 0;
+        int rights = (state >>> 1) & 15;
+        if((rights & WHITE_KING_SIDE) != 0){
+            setUnmoved(7, 4, 7);
+        }
+        if((rights & WHITE_QUEEN_SIDE) != 0){
+            setUnmoved(7, 4, 0);
+        }
+        if((rights & BLACK_KING_SIDE) != 0){
+            setUnmoved(0, 4, 7);
+        }
+        if((rights & BLACK_QUEEN_SIDE) != 0){
+            setUnmoved(0, 4, 0);
+        }
+        int file = ((state >>> 5) & 15) - 1;
+        if(file > 7 || (file >= 0 && !setDoublePush(white, file))){
+            return false;
+        }
+        setState(white, computeCastlingRights(), file >= 0 ? capturableFile(white, file) : -1);
+        halfmoveClock = in.getShort() & 0xFFFF;
+        fullmoveNumber = Math.max(in.getShort() & 0xFFFF, 1);
+        return true;
     }
 
     /**
      * Method to update the state of the board depending on the user's move. If the move is not legal, this method does not do anything and instead simply returns false.
+     * The move is checked with isLegal and then made with makeMove. A pawn reaching the last row stays a pawn; the caller replaces it with the piece the player picks.
      * @param sRow Row of starting Tile in the board array
      * @param sCol Column of starting Tile in the board array
      * @param dRow Row of destination Tile in the board array
@@ -72,70 +589,150 @@ public class Board {
      * @param isWhiteTurn true if it is white player's turn, false otherwise
      * @return True if the move was legal and the board was successfully updated, otherwise method returns false without doing anything.
      */
-
-
-
     public boolean updateBoard(int sRow, int sCol, int dRow, int dCol, Board board, boolean isWhiteTurn){
-        Piece[][] gameBoard = board.getBoard();
-        Piece startPiece = gameBoard[sRow][sCol];
-        Piece destinationTile = gameBoard[dRow][dCol];
-
+        Piece startPiece = board.getBoard()[sRow][sCol];
         if(startPiece == null){
             return false;
         }
-        //white's move
-        if(isWhiteTurn && startPiece.getColor().equals("w") && startPiece.canMove(sRow, sCol, dRow, dCol, board, prevMove, startingCoord) && startPiece.isPathClear(sRow, sCol, dRow, dCol, board)) {
-            gameBoard[dRow][dCol] = startPiece;
-            gameBoard[sRow][sCol] = null;
-            ArrayList<Integer> kcoord = findKing(true, board);
-            Piece temp = board.getBoard()[kcoord.get(0)][kcoord.get(1)];
-            if(inCheck(sRow,sCol,board, isWhiteTurn)){
-                gameBoard[dRow][dCol] = destinationTile;
-                gameBoard[sRow][sCol] = startPiece;
-                return false;
-            }
-            else{
+        int from = Bitboard.square(sRow, sCol);
+        int to = Bitboard.square(dRow, dCol);
+        int move = board.encodeMove(from, to, Piece.QUEEN);
+        if(!board.isLegal(move, isWhiteTurn)){
+            return false;
+        }
+        if(Move.isPromotion(move)){
+            move = Move.encode(from, to, Move.isCapture(move) ? Move.CAPTURE : Move.QUIET);
+        }
+        board.makeMove(move);
+        return true;
+    }
 
-                startingCoord[0] = sRow;
-                startingCoord[1] =sCol;
-                startingCoord[2] =dRow;
-                startingCoord[3] =dCol;
-                prevMove = gameBoard[dRow][dCol];
-                prevStart = startPiece;
-                prevStartPos = new int[]{sRow, sCol};
-                prevDest = destinationTile;
-                prevDestPos = new int[]{dRow,dCol};
-                return true;
-            }
-        }//end white's move
+    /**
+     * Plays a packed move the same way a game does: it is checked with isLegal first, and only made if it is legal.
+     * Like makeMove, it can be taken back with unmakeMove.
+     * @param move packed move from listMoves or generateMoves
+     * @return true if the move was legal and was made, false otherwise
+     */
+    public boolean playMove(int move){
+        if(!isLegal(move)){
+            return false;
+        }
+        makeMove(move);
+        return true;
+    }
+
+    /**
+     * Tells if a packed move is legal for the side to move: the piece can make it under the Piece.canMove rules, it carries the flags the move generator
+     * would give it, and it does not leave the player's own king in check. Nothing on the board or on any piece is changed, not even for a moment,
+     * so the answer can be cached or asked ahead of time, and many threads can ask about the same board at once as long as none of them is making a move.
+     * @param move packed move
+     * @return true if the move is legal
+     */
+    public boolean isLegal(int move){
+        return isLegal(move, whiteToMove);
+    }
 
-        //black's move
-        else if((!isWhiteTurn) && startPiece.getColor() == "b" && startPiece.canMove(sRow, sCol, dRow, dCol, board, prevMove, startingCoord) && startPiece.isPathClear(sRow, sCol, dRow, dCol, board)){
-            gameBoard[dRow][dCol] = startPiece;
-            gameBoard[sRow][sCol] = null;
-            ArrayList<Integer> kcoord = findKing(false, board);
-            Piece temp = board.getBoard()[kcoord.get(0)][kcoord.get(1)];
+    /**
+     * Does the work of isLegal for either player, whether or not it is their turn
+     * @param move packed move
+     * @param white true if the move is made by white
+     * @return true if the move is legal
+     */
+    private boolean isLegal(int move, boolean white){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int sRow = Bitboard.row(from);
+        int sCol = Bitboard.col(from);
+        int dRow = Bitboard.row(to);
+        int dCol = Bitboard.col(to);
+        Piece piece = board[sRow][sCol];
+        if(piece == null || piece.isWhite() != white || from == to){
+            return false;
+        }
+        if(move != encodeMove(from, to, Move.isPromotion(move) ? Move.promotionType(move) : Piece.QUEEN)){
+            return false;
+        }
+        if(!piece.canMove(sRow, sCol, dRow, dCol, this, prevMove, startingCoord) || !piece.isPathClear(sRow, sCol, dRow, dCol, this)){
+            return false;
+        }
+        return isKingSafeAfter(move, piece);
+    }
 
-            if(inCheck(sRow,sCol,board, isWhiteTurn)){
-                gameBoard[dRow][dCol] = destinationTile;
-                gameBoard[sRow][sCol] = startPiece;
-                return false;
+    /**
+     * Packs a move from its two squares with the flags the move generator gives it: castling for a king moving two tiles, en passant for a pawn moving
+     * sideways onto an empty tile, a double push, a capture, and a promotion for a pawn reaching the last row
+     * @param from starting square index
+     * @param to destination square index
+     * @param promotionType piece a pawn reaching the last row becomes, Piece.KNIGHT through Piece.QUEEN
+     * @return packed move
+     */
+    private int encodeMove(int from, int to, int promotionType){
+        Piece piece = board[Bitboard.row(from)][Bitboard.col(from)];
+        boolean capture = board[Bitboard.row(to)][Bitboard.col(to)] != null;
+        int colDelta = Bitboard.col(to) - Bitboard.col(from);
+        int rowDelta = Bitboard.row(to) - Bitboard.row(from);
+        if(piece.getType() == Piece.KING && rowDelta == 0 && Math.abs(colDelta) == 2){
+            return Move.encode(from, to, colDelta > 0 ? Move.KING_CASTLE : Move.QUEEN_CASTLE);
+        }
+        if(piece.getType() == Piece.PAWN){
+            if(Bitboard.row(to) == (piece.isWhite() ? 0 : 7)){
+                return Move.promotion(from, to, promotionType, capture);
             }
-            else{
-                startingCoord[0] = sRow;
-                startingCoord[1] =sCol;
-                startingCoord[2] =dRow;
-                startingCoord[3] =dCol;
-                prevMove = gameBoard[dRow][dCol];
-                prevStart = startPiece;
-                prevStartPos = new int[]{sRow, sCol};
-                prevDest = destinationTile;
-                prevDestPos = new int[]{dRow,dCol};
-                return true;
+            if(colDelta != 0 && !capture){
+                return Move.encode(from, to, Move.EN_PASSANT);
             }
-        }//end black's move
+            if(Math.abs(rowDelta) == 2){
+                return Move.encode(from, to, Move.DOUBLE_PUSH);
+            }
+        }
+        return Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET);
+    }
 
-        return false;
+    /**
+     * Tells if the player's king would be out of check after a move, by looking at the bitboards as they would be after it instead of making the move
+     * @param move packed move the piece can make
+     * @param piece the piece making the move
+     * @return true if no enemy piece would attack the king
+     */
+    private boolean isKingSafeAfter(int move, Piece piece){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        boolean white = piece.isWhite();
+        long captured = 1L << to;
+        long occupiedAfter = (occupied & ~(1L << from)) | captured;
+        if(flags == Move.EN_PASSANT){
+            captured = 1L << Bitboard.square(Bitboard.row(from), Bitboard.col(to));
+            occupiedAfter &= ~captured;
+        }
+        else if(flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE){
+            int rookFrom = flags == Move.KING_CASTLE ? from + 3 : from - 4;
+            int rookTo = flags == Move.KING_CASTLE ? from + 1 : from - 1;
+            occupiedAfter = (occupiedAfter & ~(1L << rookFrom)) | (1L << rookTo);
+        }
+        int king = piece.getType() == Piece.KING ? to : findKing(white, this);
+        if(king < 0){
+            return true;
+        }
+        //a piece that is taken no longer attacks anything
+        return (attackersOf(king, occupiedAfter, white) & ~captured) == 0;
+    }
+
+    /**
+     * Finds the enemy pieces that attack a square, with sliding pieces stopped by the given occupancy instead of the real one
+     * @param square square index of the tile in question
+     * @param occupiedTiles bitboard of the tiles that block sliding pieces
+     * @param white true to find the pieces attacking white, i.e: the black pieces
+     * @return bitboard of the attacking pieces
+     */
+    private long attackersOf(int square, long occupiedTiles, boolean white){
+        int enemy = (white ? Piece.BLACK : Piece.WHITE) * 6;
+        long queens = pieceBitboards[enemy + Piece.QUEEN];
+        return (Bitboard.knightAttacksFrom(square) & pieceBitboards[enemy + Piece.KNIGHT])
+                | (Bitboard.kingAttacksFrom(square) & pieceBitboards[enemy + Piece.KING])
+                | (Bitboard.pawnAttacks(1L << square, white) & pieceBitboards[enemy + Piece.PAWN])
+                | (Bitboard.bishopAttacks(square, occupiedTiles) & (pieceBitboards[enemy + Piece.BISHOP] | queens))
+                | (Bitboard.rookAttacks(square, occupiedTiles) & (pieceBitboards[enemy + Piece.ROOK] | queens));
     }
 
     /**
@@ -143,93 +740,430 @@ public class Board {
      * @return true King is in check by an enemy piece. False otherwise
      */
     public static boolean inCheck(int sRow, int sCol, Board board, boolean isWhite){
+        int kingSquare = findKing(isWhite, board);
+        if(kingSquare < 0){
+            return false;
+        }
+        return isSquareAttacked(kingSquare, !isWhite, board);
+    }
 
-        Piece sPiece = board.getBoard()[sRow][sCol];
-        ArrayList<Integer> kcoord = findKing(isWhite, board);
-        String color = isWhite ? "w" : "b";
-        for(int i = 0; i < 8; i++){
-            for(int j = 0; j < 8; j++){
-                Piece temp = board.getBoard()[i][j];
-                if(temp != null && ! temp.getColor().equals(color)){
-                    ArrayList<Integer> isCheckMove = temp.listMoves(i,j,board).stream().filter(move -> {
-                        return move.get(0) == kcoord.get(0) && move.get(1) == kcoord.get(1);
-                    }).findAny().orElse(null);
-                    if(isCheckMove != null){
-                        return true;
-                    }
-                }
+    /**
+     * Checks to see if any piece of a player attacks a square. The attack map is kept up to date by every move, so this is a lookup.
+     * @param square square index of the tile in question
+     * @param byWhite true to look for white attackers, false to look for black attackers
+     * @param board chessboard
+     * @return true if the square is attacked, false otherwise
+     */
+    public static boolean isSquareAttacked(int square, boolean byWhite, Board board){
+        return board.attacks.isAttacked(square, byWhite);
+    }
+
+    /**
+     * Checks if a player has any legal move left. A player in check with none is checkmated, and one not in check with none is stalemated.
+     * @param color "w" for white, "b" for black
+     * @param board chessboard, which is left as it was
+     * @return true if the player has at least one legal move, false otherwise
+     */
+    public static boolean hasLegalMove(String color, Board board){
+        return board.generateLegalMoves(color.equals("w"), board.moveBuffer) > 0;
+    }
+
+    /**
+     * Writes every viable move of one player into a move buffer as packed ints (see Move). Moves that would leave the player's own king in check are still listed.
+     * @param isWhite true to list white's moves, false to list black's moves
+     * @param moves buffer the moves are written into, at least Move.MAX_MOVES long
+     * @return number of moves written
+     */
+    public int generateMoves(boolean isWhite, int[] moves){
+        int count = 0;
+        //only visit the tiles that hold this player's pieces
+        long own = colorBitboards[isWhite ? Piece.WHITE : Piece.BLACK];
+        while(own != 0){
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            int i = Bitboard.row(square);
+            int j = Bitboard.col(square);
+            count = board[i][j].listMoves(i, j, this, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Writes only the captures of one player into a move buffer, plus pawn pushes that promote to a queen. Like generateMoves,
+     * captures that leave the player's own king in check are still listed.
+     * @param isWhite true to list white's captures, false to list black's captures
+     * @param moves buffer the moves are written into, at least Move.MAX_MOVES long
+     * @return number of moves written
+     */
+    public int generateCaptures(boolean isWhite, int[] moves){
+        int count = 0;
+        long own = colorBitboards[isWhite ? Piece.WHITE : Piece.BLACK];
+        while(own != 0){
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            int i = Bitboard.row(square);
+            int j = Bitboard.col(square);
+            count = board[i][j].listCaptures(i, j, this, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Writes only the moves of one player that generateCaptures leaves out into a move buffer
+     * @param isWhite true to list white's moves, false to list black's moves
+     * @param moves buffer the moves are written into, at least Move.MAX_MOVES long
+     * @return number of moves written
+     */
+    public int generateQuiets(boolean isWhite, int[] moves){
+        int count = 0;
+        long own = colorBitboards[isWhite ? Piece.WHITE : Piece.BLACK];
+        while(own != 0){
+            int square = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            int i = Bitboard.row(square);
+            int j = Bitboard.col(square);
+            count = board[i][j].listQuiets(i, j, this, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Checks if a move the generator made in some other position, such as a move from the transposition table or a killer move, can be made here.
+     * Only the moves of the piece on the starting tile are listed, so this is much cheaper than generating every move.
+     * @param move packed move
+     * @return true if the piece of the side to move on the starting tile lists this exact move
+     */
+    public boolean isPseudoLegal(int move){
+        int from = Move.from(move);
+        Piece piece = board[Bitboard.row(from)][Bitboard.col(from)];
+        if(piece == null || piece.isWhite() != whiteToMove){
+            return false;
+        }
+        int count = piece.listMoves(Bitboard.row(from), Bitboard.col(from), this, pieceMoveBuffer, 0);
+        for(int k = 0; k < count; k++){
+            if(pieceMoveBuffer[k] == move){
+                return true;
             }
         }
         return false;
+    }
+
+    /**
+     * Writes only the legal moves of a player into a move buffer. The pinned pieces and the tiles that stop a check are worked out once,
+     * and every generated move is then checked against them with a few bit operations, so no move is ever made to find out that it was illegal.
+     * In double check only the king can move, so nothing else is generated at all.
+     * @param isWhite true for white's moves, false for black's
+     * @param moves buffer the moves are written into
+     * @return number of moves written
+     */
+    public int generateLegalMoves(boolean isWhite, int[] moves){
+        long checkMask = getCheckMask(isWhite);
+        long pinned = getPinned(isWhite);
+        int count;
+        if(checkMask == 0){
+            int king = findKing(isWhite, this);
+            count = board[Bitboard.row(king)][Bitboard.col(king)].listMoves(Bitboard.row(king), Bitboard.col(king), this, moves, 0);
+        }
+        else{
+            count = generateMoves(isWhite, moves);
+        }
+        int legal = 0;
+        for(int k = 0; k < count; k++){
+            if(leavesKingSafe(moves[k], pinned, checkMask)){
+                moves[legal++] = moves[k];
+            }
+        }
+        return legal;
+    }
 
+    /**
+     * Gives the tiles a move by any piece but the king has to land on to deal with a check: every tile when the player is not in check,
+     * the checking piece and the tiles between it and the king when there is one check, and no tile at all in double check
+     * @param white true for white's king, false for black's
+     * @return bitboard of the tiles, all ones when not in check
+     */
+    public long getCheckMask(boolean white){
+        int king = findKing(white, this);
+        if(king < 0 || !isSquareAttacked(king, !white, this)){
+            return -1L;
+        }
+        long checkers = attackersOf(king, occupied, white);
+        if((checkers & (checkers - 1)) != 0){
+            return 0L;
+        }
+        return checkers | Bitboard.between(king, Long.numberOfTrailingZeros(checkers));
     }
 
     /**
-     *
-     * Checks if player is in CheckMate -- no viable options to get king out of check
-     * @return true if player has no viable moves to get out of Check. False if player has viable moves remaining.
+     * Gives the pieces of a player that are pinned to their king, i.e: the only piece standing between the king and an enemy rook, bishop or queen on its line
+     * @param white true for white's pieces, false for black's
+     * @return bitboard of the pinned pieces
      */
-    public static boolean isCheckMate(String color, Board board){
-        for(int i = 0; i < 8; i++){
-            for(int j = 0; j < 8; j++){
-                Piece temp = board.getBoard()[i][j];
-                if(temp != null && temp.getColor().equals(color)){
-                    for(ArrayList<Integer> move :  temp.listMoves(i,j,board)){
-                        boolean success = board.updateBoard(i,j,move.get(0), move.get(1),board, color.equals("w"));
-                        if(success){
-                            board.undoMove();
-                            return true;
-                        }
-                    }
-                }
+    public long getPinned(boolean white){
+        int king = findKing(white, this);
+        if(king < 0){
+            return 0L;
+        }
+        int enemy = (white ? Piece.BLACK : Piece.WHITE) * 6;
+        long queens = pieceBitboards[enemy + Piece.QUEEN];
+        //enemy sliders that would attack the king on an empty board
+        long snipers = (Bitboard.rookAttacks(king, 0L) & (pieceBitboards[enemy + Piece.ROOK] | queens))
+                | (Bitboard.bishopAttacks(king, 0L) & (pieceBitboards[enemy + Piece.BISHOP] | queens));
+        long own = colorBitboards[white ? Piece.WHITE : Piece.BLACK];
+        long pinned = 0L;
+        while(snipers != 0){
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboard.between(king, sniper) & occupied;
+            if(blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0){
+                pinned |= blockers;
             }
         }
-        return false;
+        return pinned;
+    }
+
+    /**
+     * Tells if a move from the generator leaves the mover's king out of check, using the pinned pieces and check mask of the position
+     * instead of making the move. King moves are checked against the attack map, and en passant, which can uncover an attack along the row of both pawns, is looked at on its own.
+     * @param move packed move from listMoves or generateMoves
+     * @param pinned result of getPinned for the player making the move
+     * @param checkMask result of getCheckMask for the player making the move
+     * @return true if the move is legal
+     */
+    public boolean leavesKingSafe(int move, long pinned, long checkMask){
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long fromBit = 1L << from;
+        int flags = Move.flags(move);
+        boolean white = (colorBitboards[Piece.WHITE] & fromBit) != 0;
+        if((pieceBitboards[(white ? Piece.WHITE : Piece.BLACK) * 6 + Piece.KING] & fromBit) != 0){
+            //castling moves are only generated when the king is not in check and does not cross or land on an attacked tile
+            if(flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE){
+                return true;
+            }
+            if(attacks.isAttacked(to, !white)){
+                return false;
+            }
+            //out of check no slider lines up with the king, so stepping away cannot uncover one
+            return checkMask == -1L || isKingSafeAfter(move, board[Bitboard.row(from)][Bitboard.col(from)]);
+        }
+        if(flags == Move.EN_PASSANT){
+            return isKingSafeAfter(move, board[Bitboard.row(from)][Bitboard.col(from)]);
+        }
+        if(((checkMask >>> to) & 1) == 0){
+            return false;
+        }
+        if((pinned & fromBit) == 0){
+            return true;
+        }
+        //a pinned piece may only move along the line between its king and the piece pinning it
+        int king = findKing(white, this);
+        return (Bitboard.between(king, to) & fromBit) != 0 || (Bitboard.between(king, from) & (1L << to)) != 0;
     }
 
     /**
      * Method that finds a king based on color provided
      * @param white color of king in question
      * @param board chessboard
-     * @return arraylist of king coordinates
-     */
-    private static ArrayList<Integer> findKing(boolean white, Board board){
-        ArrayList<Integer> kCoord = new ArrayList<>();
-        Piece tempPiece;
-            for(int i = 0; i< 8; i++){
-                for(int j = 0; j < 8; j++){
-                    tempPiece = board.getBoard()[i][j];
-                    if(tempPiece != null){
-                        if(white && tempPiece.getName().equals("K") && tempPiece.getColor().equals("w")){
-                            kCoord.add(i);
-                            kCoord.add(j);
-                            return kCoord;
-                        }
-                        else if(!white && tempPiece.getName().equals("K") && tempPiece.getColor().equals("b")){
-                            kCoord.add(i);
-                            kCoord.add(j);
-                            return kCoord;
-                        }
-                    }
-                }
+     * @return square index of the king, or -1 if there is no such king on the board
+     */
+    private static int findKing(boolean white, Board board){
+        long king = board.pieceBitboards[(white ? Piece.WHITE : Piece.BLACK) * 6 + Piece.KING];
+        if(king == 0){
+            return -1;
+        }
+        return Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Updates side to move, castling rights and en passant file after a move
+     * @param moved the piece that was moved
+     * @param sRow row the piece started on
+     * @param dRow row the piece landed on
+     * @param dCol column the piece landed on
+     * @param isWhiteTurn true if white made the move
+     * @param capture true if the move took a piece
+     */
+    private void updateState(Piece moved, int sRow, int dRow, int dCol, boolean isWhiteTurn, boolean capture){
+        halfmoveClock = capture || moved.getType() == Piece.PAWN ? 0 : halfmoveClock + 1;
+        if(!isWhiteTurn){
+            fullmoveNumber++;
+        }
+        int file = -1;
+        //the en passant file only counts when an enemy pawn is standing right beside the pawn that moved two tiles
+        if(moved.getType() == Piece.PAWN && Math.abs(dRow - sRow) == 2){
+            long bit = 1L << Bitboard.square(dRow, dCol);
+            long beside = ((bit << 1) & ~Bitboard.FILE_A) | ((bit >>> 1) & ~Bitboard.FILE_H);
+            if((beside & getPieceBitboard(isWhiteTurn ? Piece.BLACK : Piece.WHITE, Piece.PAWN)) != 0){
+                file = dCol;
             }
-        return kCoord;
+        }
+        setState(!isWhiteTurn, computeCastlingRights(), file);
     }
 
     /**
-     * Method to undo a move.
+     * Sets side to move, castling rights and en passant file, XORing the changes into the position key
+     * @param white true if white is to move
+     * @param rights castling rights bits
+     * @param file en passant file, or -1 if there is none
      */
+    private void setState(boolean white, int rights, int file){
+        if(white != whiteToMove){
+            zobristKey ^= Zobrist.SIDE;
+            whiteToMove = white;
+        }
+        zobristKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        zobristKey ^= Zobrist.enPassant(enPassantFile) ^ Zobrist.enPassant(file);
+        castlingRights = rights;
+        enPassantFile = file;
+    }
 
-    private void undoMove(){
-        Piece[][] gameBoard = this.getBoard();
-        gameBoard[prevDestPos[0]][prevDestPos[1]] = prevDest;
-        gameBoard[prevStartPos[0]][prevStartPos[1]] = prevStart;
-        prevStart = null;
-        prevDest = null;
-        prevStartPos = null;
-        prevDestPos = null;
+    /**
+     * Works out the castling rights from the kings and rooks that are still on their starting tiles and have not moved
+     * @return castling rights bits
+     */
+    private int computeCastlingRights(){
+        int rights = 0;
+        if(isUnmoved(7, 4, Piece.KING, true)){
+            if(isUnmoved(7, 7, Piece.ROOK, true)){
+                rights |= WHITE_KING_SIDE;
+            }
+            if(isUnmoved(7, 0, Piece.ROOK, true)){
+                rights |= WHITE_QUEEN_SIDE;
+            }
+        }
+        if(isUnmoved(0, 4, Piece.KING, false)){
+            if(isUnmoved(0, 7, Piece.ROOK, false)){
+                rights |= BLACK_KING_SIDE;
+            }
+            if(isUnmoved(0, 0, Piece.ROOK, false)){
+                rights |= BLACK_QUEEN_SIDE;
+            }
+        }
+        return rights;
     }
 
+    /**
+     * Checks if a tile holds a piece of the given type and color that has never moved
+     * @param row row of board
+     * @param col column of board
+     * @param type piece type index
+     * @param white true for a white piece
+     * @return true if such a piece is there and has not moved
+     */
+    private boolean isUnmoved(int row, int col, int type, boolean white){
+        Piece piece = board[row][col];
+        return piece != null && piece.getType() == type && piece.isWhite() == white && ((unmoved >>> Bitboard.square(row, col)) & 1) != 0;
+    }
+
+    /**
+     * Makes a move from the move generator without checking it, pushing everything it overwrites onto the undo stack so unmakeMove can restore the exact position.
+     * Castling also moves the rook, en passant removes the pawn that was passed, and a promotion replaces the pawn with the new piece.
+     * The move may leave the player's own king in check; use inCheck afterwards and unmakeMove if it did.
+     * @param move packed move from listMoves or generateMoves
+     */
+    public void makeMove(int move){
+        if(undoCount == undoMoves.length){
+            growUndoStack();
+        }
+        int ply = undoCount++;
+        int flags = Move.flags(move);
+        int sRow = Bitboard.row(Move.from(move));
+        int sCol = Bitboard.col(Move.from(move));
+        int dRow = Bitboard.row(Move.to(move));
+        int dCol = Bitboard.col(Move.to(move));
+        Piece moved = board[sRow][sCol];
+        Piece captured = flags == Move.EN_PASSANT ? board[sRow][dCol] : board[dRow][dCol];
+
+        int state = castlingRights | ((enPassantFile + 1) << 4) | (halfmoveClock << UNDO_CLOCK_SHIFT);
+        if(whiteToMove){
+            state |= UNDO_WHITE_TO_MOVE;
+        }
+        undoState[ply] = state;
+        undoUnmoved[ply] = unmoved;
+        undoMoves[ply] = move;
+        undoMoved[ply] = moved;
+        undoCaptured[ply] = captured;
+        undoPrevMove[ply] = prevMove;
+        System.arraycopy(startingCoord, 0, undoStartingCoord, ply * 4, 4);
+
+        if(flags == Move.EN_PASSANT){
+            setBoard(sRow, dCol, null);
+        }
+        setBoard(dRow, dCol, Move.isPromotion(move) ? Piece.of(Move.promotionType(move), moved.isWhite()) : moved);
+        setBoard(sRow, sCol, null);
+        if(flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE){
+            int rookFrom = flags == Move.KING_CASTLE ? 7 : 0;
+            int rookTo = flags == Move.KING_CASTLE ? 5 : 3;
+            setBoard(sRow, rookTo, board[sRow][rookFrom]);
+            setBoard(sRow, rookFrom, null);
+            unmoved &= ~(1L << Bitboard.square(sRow, rookFrom));
+        }
+        //whatever left or landed on either tile has moved, or has been taken
+        unmoved &= ~((1L << Move.from(move)) | (1L << Move.to(move)));
+        prevMove = board[dRow][dCol];
+        startingCoord[0] = sRow;
+        startingCoord[1] = sCol;
+        startingCoord[2] = dRow;
+        startingCoord[3] = dCol;
+        updateState(moved, sRow, dRow, dCol, moved.isWhite(), captured != null);
+    }
+
+    /**
+     * Takes back the last move made with makeMove and restores the position, flags and key exactly as they were before it
+     */
+    public void unmakeMove(){
+        int ply = --undoCount;
+        int move = undoMoves[ply];
+        int flags = Move.flags(move);
+        int state = undoState[ply];
+        int sRow = Bitboard.row(Move.from(move));
+        int sCol = Bitboard.col(Move.from(move));
+        int dRow = Bitboard.row(Move.to(move));
+        int dCol = Bitboard.col(Move.to(move));
+        Piece moved = undoMoved[ply];
+        Piece captured = undoCaptured[ply];
+
+        setBoard(sRow, sCol, moved);
+        if(flags == Move.EN_PASSANT){
+            setBoard(dRow, dCol, null);
+            setBoard(sRow, dCol, captured);
+        }
+        else{
+            setBoard(dRow, dCol, captured);
+        }
+        if(flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE){
+            int rookFrom = flags == Move.KING_CASTLE ? 7 : 0;
+            int rookTo = flags == Move.KING_CASTLE ? 5 : 3;
+            setBoard(sRow, rookFrom, board[sRow][rookTo]);
+            setBoard(sRow, rookTo, null);
+        }
+        unmoved = undoUnmoved[ply];
+        prevMove = undoPrevMove[ply];
+        System.arraycopy(undoStartingCoord, ply * 4, startingCoord, 0, 4);
+        undoMoved[ply] = null;
+        undoCaptured[ply] = null;
+        undoPrevMove[ply] = null;
+        halfmoveClock = state >>> UNDO_CLOCK_SHIFT;
+        if((state & UNDO_WHITE_TO_MOVE) == 0){
+            fullmoveNumber--;
+        }
+        setState((state & UNDO_WHITE_TO_MOVE) != 0, state & 15, ((state >>> 4) & 15) - 1);
+    }
+
+    /**
+     * Doubles the size of the undo stack when a line gets deeper than it can hold
+     */
+    private void growUndoStack(){
+        int size = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, size);
+        undoMoved = Arrays.copyOf(undoMoved, size);
+        undoCaptured = Arrays.copyOf(undoCaptured, size);
+        undoPrevMove = Arrays.copyOf(undoPrevMove, size);
+        undoState = Arrays.copyOf(undoState, size);
+        undoUnmoved = Arrays.copyOf(undoUnmoved, size);
+        undoStartingCoord = Arrays.copyOf(undoStartingCoord, size * 4);
+    }
 
     /**
      * Draws the current state of the chessboard on terminal for user to see
@@ -265,9 +1199,10 @@ public class Board {
 
     /**
      * Gives user access to Board object in order to access to the game board itself or methods like UpdateBoard and isInCheck.
+     * The grid must only be changed through setBoard so the bitboards stay in sync with it.
      * @return Board object
      */
-    public static Piece[][] getBoard() {
+    public Piece[][] getBoard() {
         return board;
     }
 
@@ -277,9 +1212,182 @@ public class Board {
      * @param j column of board
      * @param piece A chess piece that will now occupy a tile
      */
-    public static void setBoard(int i, int j, Piece piece) {
-        Board.board[i][j] = piece;
+    public void setBoard(int i, int j, Piece piece) {
+        Piece old = this.board[i][j];
+        placePiece(i, j, piece);
+        attacks.update(Bitboard.square(i, j), piece, (old == null) != (piece == null), this);
     }
 
+    /**
+     * Does the work of setBoard except for the attack map, which the caller must bring up to date itself
+     * @param i row of board
+     * @param j column of board
+     * @param piece A chess piece that will now occupy a tile, or null to empty it
+     */
+    private void placePiece(int i, int j, Piece piece) {
+        int square = Bitboard.square(i, j);
+        long bit = 1L << square;
+        Piece old = this.board[i][j];
+        if(old != null){
+            int index = old.getIndex();
+            int type = old.getType();
+            zobristKey ^= Zobrist.piece(index, square);
+            pieceBitboards[index] &= ~bit;
+            colorBitboards[old.isWhite() ? Piece.WHITE : Piece.BLACK] &= ~bit;
+            occupied &= ~bit;
+            middlegameScore -= Evaluation.middlegame(index, square);
+            endgameScore -= Evaluation.endgame(index, square);
+            phase -= Evaluation.phase(type);
+            material[old.isWhite() ? Piece.WHITE : Piece.BLACK] -= Evaluation.PIECE_VALUES[type];
+        }
+        if(piece != null){
+            int index = piece.getIndex();
+            int type = piece.getType();
+            zobristKey ^= Zobrist.piece(index, square);
+            pieceBitboards[index] |= bit;
+            colorBitboards[piece.isWhite() ? Piece.WHITE : Piece.BLACK] |= bit;
+            occupied |= bit;
+            middlegameScore += Evaluation.middlegame(index, square);
+            endgameScore += Evaluation.endgame(index, square);
+            phase += Evaluation.phase(type);
+            material[piece.isWhite() ? Piece.WHITE : Piece.BLACK] += Evaluation.PIECE_VALUES[type];
+        }
+        this.board[i][j] = piece;
+    }
+
+    /**
+     * Gives the bitboard of one type of piece for one player
+     * @param color Piece.WHITE or Piece.BLACK
+     * @param type piece type index, e.g: Piece.KNIGHT
+     * @return bitboard of the tiles holding that kind of piece
+     */
+    public long getPieceBitboard(int color, int type) {
+        return pieceBitboards[color * 6 + type];
+    }
+
+    /**
+     * Gives the bitboard of every tile occupied by one player
+     * @param color Piece.WHITE or Piece.BLACK
+     * @return bitboard of the player's pieces
+     */
+    public long getColorBitboard(int color) {
+        return colorBitboards[color];
+    }
+
+    /**
+     * Gives the bitboard of every occupied tile
+     * @return bitboard of all pieces on the board
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * Gives the 64-bit Zobrist key of the current position. It is kept up to date by every change to the board, so this is a plain field read.
+     * @return hash of the position
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Works out the Zobrist key of the current position from scratch. This is slow and is only meant for checking the incremental key.
+     * @return hash of the position
+     */
+    public long computeZobristKey() {
+        long key = 0L;
+        for(int i = 0; i < 8; i++){
+            for(int j = 0; j < 8; j++){
+                if(board[i][j] != null){
+                    key ^= Zobrist.piece(board[i][j].getIndex(), Bitboard.square(i, j));
+                }
+            }
+        }
+        if(!whiteToMove){
+            key ^= Zobrist.SIDE;
+        }
+        return key ^ Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantFile);
+    }
+
+    /**
+     * Tells whose turn it is after the last move made through updateBoard
+     * @return true if white is to move
+     */
+    public boolean isWhiteToMove() {
+        return whiteToMove;
+    }
+
+    /**
+     * Gives the castling rights that are still available
+     * @return castling rights bits, see WHITE_KING_SIDE, WHITE_QUEEN_SIDE, BLACK_KING_SIDE and BLACK_QUEEN_SIDE
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Gives the column of the pawn that can be taken en passant
+     * @return en passant file, or -1 if no pawn can be taken en passant
+     */
+    public int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Gives the number of moves made since the last capture or pawn move
+     * @return halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Gives the number of the current move, which starts at 1 and goes up after every black move
+     * @return fullmove number
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Gives the sum of the middlegame values of every piece on the board
+     * @return score in centipawns, positive if white is ahead
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * Gives the sum of the endgame values of every piece on the board
+     * @return score in centipawns, positive if white is ahead
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Gives the game phase, which goes down from Evaluation.MAX_PHASE at the start towards 0 as pieces are traded
+     * @return sum of the phase weights of every piece on the board
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gives the material of one player
+     * @param color Piece.WHITE or Piece.BLACK
+     * @return value of the player's pieces in centipawns, not counting the king
+     */
+    public int getMaterial(int color) {
+        return material[color];
+    }
+
+    /**
+     * Gives the attack map of the board, which knows how many pieces of each player attack every tile
+     * @return the attack map
+     */
+    public AttackMap getAttackMap() {
+        return attacks;
+    }
 
 }
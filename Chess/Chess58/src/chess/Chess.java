@@ -18,6 +18,54 @@ import java.util.Arrays;
 public class Chess {
 
     public static void main(String[] args) throws IOException {
+        //"perft <depth> [moves...]" counts the move tree instead of starting a game
+        if(args.length > 0 && args[0].equals("perft")){
+            Perft.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        //"search <depth> [moves...]" prints what the engine thinks of a position
+        if(args.length > 0 && args[0].equals("search")){
+            Search.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        //"smp <depth> [threads] [moves...]" times the parallel search with more and more threads
+        if(args.length > 0 && args[0].equals("smp")){
+            ParallelSearch.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        //"uci" talks the Universal Chess Interface protocol to a GUI instead of playing on the console
+        if(args.length > 0 && args[0].equals("uci")){
+            Uci.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        //"pgn <file> [threads]" replays every game of a PGN file and prints how fast it went
+        if(args.length > 0 && args[0].equals("pgn")){
+            PgnReader.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        //"server [port] [maxGames]" hosts many games at once over TCP instead of playing one on the console
+        if(args.length > 0 && args[0].equals("server")){
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        //"ai [w|b] [time] [threads]" lets the computer play one color, black unless told otherwise.
+        //time is either milliseconds per move (e.g: "2000") or a clock and increment in milliseconds (e.g: "300000+2000")
+        ParallelSearch engine = null;
+        boolean engineIsWhite = false;
+        long engineTime = 2000;
+        long engineClock = -1;
+        long engineIncrement = 0;
+        if(args.length > 0 && args[0].equals("ai")){
+            engineIsWhite = args.length > 1 && args[1].equals("w");
+            if(args.length > 2 && args[2].contains("+")){
+                engineClock = Long.parseLong(args[2].substring(0, args[2].indexOf('+')));
+                engineIncrement = Long.parseLong(args[2].substring(args[2].indexOf('+') + 1));
+            }
+            else if(args.length > 2){
+                engineTime = Long.parseLong(args[2]);
+            }
+            engine = new ParallelSearch(args.length > 3 ? Integer.parseInt(args[3]) : 1);
+        }
         Board gameBoard = new Board();
         gameBoard.drawBoard();
         int sRow,sCol,dRow,dCol = 0;
@@ -26,6 +74,35 @@ public class Chess {
         boolean hasOfferedDraw = false;
         BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
         while(noCheckMate){
+            //computer's turn
+            if(engine != null && isWhiteTurn == engineIsWhite){
+                TimeManager time = engineClock >= 0 ? TimeManager.clock(engineClock, engineIncrement, 0) : TimeManager.fixed(engineTime);
+                long thinkStart = System.currentTimeMillis();
+                int move = engine.search(gameBoard, Search.MAX_PLY, time);
+                if(engineClock >= 0){
+                    engineClock += engineIncrement - (System.currentTimeMillis() - thinkStart);
+                }
+                if(move < 0){
+                    //checkmates are announced after the move that gives them, so no move left here means stalemate
+                    System.out.println("Draw");
+                    return;
+                }
+                System.out.println((isWhiteTurn ? "White's move: " : "Black's move: ") + toInput(move));
+                gameBoard.playMove(move);
+                System.out.println();
+                gameBoard.drawBoard();
+                if(Board.inCheck(0, 0, gameBoard, !isWhiteTurn)){
+                    if(!Board.hasLegalMove(isWhiteTurn ? "b" : "w", gameBoard)){
+                        System.out.println("Checkmate");
+                        System.out.println(isWhiteTurn ? "White wins" : "Black wins");
+                        return;
+                    }
+                    System.out.println("Check");
+                }
+                hasOfferedDraw = false;
+                isWhiteTurn = !isWhiteTurn;
+                continue;
+            }
             //if white turn (first move of game is always made by white)
             if(isWhiteTurn){
                 System.out.print("White's move: ");
@@ -97,10 +174,10 @@ public class Chess {
                 Piece PieceInQuestion = gameBoard.getBoard()[dRow][dCol];
                 if(isPromotionElgible(PieceInQuestion, true, dRow)){
                     if(wCoordinates.length() == 7){
-                        PieceInQuestion = promotePiece(wCoordinates.charAt(6), "w");
+                        PieceInQuestion = promotePiece(wCoordinates.charAt(6), true);
                     }
                     else{
-                        PieceInQuestion = promotePiece('q' , "w");
+                        PieceInQuestion = promotePiece('q', true);
                     }
                     gameBoard.setBoard(dRow, dCol, PieceInQuestion);
                 }
@@ -112,7 +189,7 @@ public class Chess {
                 if(gameBoard.inCheck(sRow, sCol, gameBoard, false)){
 
 
-                    if(gameBoard.isCheckMate( "w",gameBoard)){
+                    if(!Board.hasLegalMove("b", gameBoard)){
                         System.out.println("Checkmate");
                         System.out.println("White wins");
                        return;
@@ -191,10 +268,10 @@ public class Chess {
                 Piece PieceInQuestion = gameBoard.getBoard()[dRow][dCol];
                 if(isPromotionElgible(PieceInQuestion, false, dRow)){
                     if(bCoordinates.length() == 7){
-                        PieceInQuestion = promotePiece(bCoordinates.charAt(6), "b");
+                        PieceInQuestion = promotePiece(bCoordinates.charAt(6), false);
                     }
                     else{
-                        PieceInQuestion = promotePiece('q', "b");
+                        PieceInQuestion = promotePiece('q', false);
                     }
                     gameBoard.setBoard(dRow, dCol, PieceInQuestion);
                 }
@@ -205,7 +282,7 @@ public class Chess {
 
                 if(gameBoard.inCheck(sRow, sCol, gameBoard, true) ){
 
-                    if(gameBoard.isCheckMate( "b",gameBoard)){
+                    if(!Board.hasLegalMove("w", gameBoard)){
                         System.out.println("Checkmate");
                         System.out.println("Black wins");
                         return;
@@ -243,26 +320,37 @@ public class Chess {
     }
 
     /**
-     * Promotes a piece based on input. If user
-     * @param newPiece
-     * @param color
-     * @return
+     * Promotes a piece based on input. If user does not name a piece, or names one a pawn cannot become, the pawn becomes a queen
+     * @param newPiece letter of the new piece: r, n, b or q
+     * @param white true if the promoted pawn is white
+     * @return the shared piece of that kind (see Piece.of)
      */
-    private static Piece promotePiece(char newPiece, String color){
+    static Piece promotePiece(char newPiece, boolean white){
         newPiece = Character.toUpperCase(newPiece);
         if(newPiece == 'R'){
-            return new Rook(color, "R");
+            return Piece.of(Piece.ROOK, white);
         }
         if(newPiece == 'N'){
-            return new Knight(color, "N");
+            return Piece.of(Piece.KNIGHT, white);
         }
         if(newPiece == 'B'){
-            return new Bishop(color, "B");
+            return Piece.of(Piece.BISHOP, white);
         }
-        if(newPiece == 'Q'){
-            return new Queen(color, "Q");
+        return Piece.of(Piece.QUEEN, white);
+    }
+
+    /**
+     * Writes a packed move the way a user would type it, e.g: "e7 e8 q"
+     * @param move packed move
+     * @return move in "FileRank FileRank" format, with the promotion letter appended if there is one
+     */
+    private static String toInput(int move){
+        String text = Move.toString(move);
+        String input = text.substring(0, 2) + " " + text.substring(2, 4);
+        if(text.length() > 4){
+            input += " " + text.charAt(4);
         }
-        return new Queen(color, "Q");
+        return input;
     }
 
     /**
@@ -297,7 +385,7 @@ public class Chess {
      * @param hasOfferedDraw true if the previous player's move asked for a draw, else false
      * @return true if the user entered valid input, false otherwise
      */
-    private static boolean isValid (String input, boolean hasOfferedDraw){
+    static boolean isValid (String input, boolean hasOfferedDraw){
         input = input.toLowerCase();
         ArrayList<Character> letters = new ArrayList<Character>(Arrays.asList('a', 'b','c', 'd', 'e', 'f', 'g', 'h'));
         ArrayList<Character> numbers = new ArrayList<Character>(Arrays.asList('1', '2','3', '4', '5', '6', '7', '8'));
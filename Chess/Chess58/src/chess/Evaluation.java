@@ -0,0 +1,162 @@
+/**
+ * Evaluation holds the numbers the computer player uses to judge a position: the material value of every piece and a piece-square table per piece,
+ * which rewards standing on good tiles (knights in the center, rooks on the seventh row, a castled king...).
+ * Board adds and subtracts these values in setBoard every time a tile changes, so scoring a position only combines a few running totals.
+ * The king gets a second table for the endgame, and the two totals are blended by how many pieces are left.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public final class Evaluation {
+
+    /**
+     * PIECE_VALUES is the material value of each piece type in centipawns, indexed by type
+     * PHASE_WEIGHTS is how much each piece type counts towards the game phase; all pieces but pawns and kings on the board add up to MAX_PHASE
+     */
+    public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+    private static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+    public static final int MAX_PHASE = 24;
+
+    /**
+     * The tables are written from white's point of view in the same order as the board array, row 0 (rank 8) first, so they read like a board.
+     * Black pieces use the same tables mirrored top to bottom.
+     */
+    private static final int[] PAWN_TABLE = {
+             0,   0,   0,   0,   0,   0,   0,   0,
+            50,  50,  50,  50,  50,  50,  50,  50,
+            10,  10,  20,  30,  30,  20,  10,  10,
+             5,   5,  10,  25,  25,  10,   5,   5,
+             0,   0,   0,  20,  20,   0,   0,   0,
+             5,  -5, -10,   0,   0, -10,  -5,   5,
+             5,  10,  10, -20, -20,  10,  10,   5,
+             0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] KNIGHT_TABLE = {
+           -50, -40, -30, -30, -30, -30, -40, -50,
+           -40, -20,   0,   0,   0,   0, -20, -40,
+           -30,   0,  10,  15,  15,  10,   0, -30,
+           -30,   5,  15,  20,  20,  15,   5, -30,
+           -30,   0,  15,  20,  20,  15,   0, -30,
+           -30,   5,  10,  15,  15,  10,   5, -30,
+           -40, -20,   0,   5,   5,   0, -20, -40,
+           -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+           -20, -10, -10, -10, -10, -10, -10, -20,
+           -10,   0,   0,   0,   0,   0,   0, -10,
+           -10,   0,   5,  10,  10,   5,   0, -10,
+           -10,   5,   5,  10,  10,   5,   5, -10,
+           -10,   0,  10,  10,  10,  10,   0, -10,
+           -10,  10,  10,  10,  10,  10,  10, -10,
+           -10,   5,   0,   0,   0,   0,   5, -10,
+           -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+             0,   0,   0,   0,   0,   0,   0,   0,
+             5,  10,  10,  10,  10,  10,  10,   5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+            -5,   0,   0,   0,   0,   0,   0,  -5,
+             0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] QUEEN_TABLE = {
+           -20, -10, -10,  -5,  -5, -10, -10, -20,
+           -10,   0,   0,   0,   0,   0,   0, -10,
+           -10,   0,   5,   5,   5,   5,   0, -10,
+            -5,   0,   5,   5,   5,   5,   0,  -5,
+             0,   0,   5,   5,   5,   5,   0,  -5,
+           -10,   5,   5,   5,   5,   5,   0, -10,
+           -10,   0,   5,   0,   0,   0,   0, -10,
+           -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] KING_MIDDLEGAME_TABLE = {
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -30, -40, -40, -50, -50, -40, -40, -30,
+           -20, -30, -30, -40, -40, -30, -30, -20,
+           -10, -20, -20, -20, -20, -20, -20, -10,
+            20,  20,   0,   0,   0,   0,  20,  20,
+            20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+           -50, -40, -30, -20, -20, -30, -40, -50,
+           -30, -20, -10,   0,   0, -10, -20, -30,
+           -30, -10,  20,  30,  30,  20, -10, -30,
+           -30, -10,  30,  40,  40,  30, -10, -30,
+           -30, -10,  30,  40,  40,  30, -10, -30,
+           -30, -10,  20,  30,  30,  20, -10, -30,
+           -30, -30,   0,   0,   0,   0, -30, -30,
+           -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * MIDDLEGAME and ENDGAME hold material plus table value for every piece index and square (stored as index * 64 + square),
+     * already negated for black so Board can simply add them up with white ahead being positive
+     */
+    private static final int[] MIDDLEGAME = new int[12 * 64];
+    private static final int[] ENDGAME = new int[12 * 64];
+
+    static {
+        int[][] tables = { PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_MIDDLEGAME_TABLE };
+        for(int color = Piece.WHITE; color <= Piece.BLACK; color++){
+            for(int type = Piece.PAWN; type <= Piece.KING; type++){
+                for(int square = 0; square < 64; square++){
+                    //black looks at the table from the other side of the board
+                    int tableSquare = color == Piece.WHITE ? square : square ^ 56;
+                    int sign = color == Piece.WHITE ? 1 : -1;
+                    int index = ((color * 6 + type) << 6) | square;
+                    MIDDLEGAME[index] = sign * (PIECE_VALUES[type] + tables[type][tableSquare]);
+                    ENDGAME[index] = sign * (PIECE_VALUES[type] + (type == Piece.KING ? KING_ENDGAME_TABLE[tableSquare] : tables[type][tableSquare]));
+                }
+            }
+        }
+    }
+
+    private Evaluation(){
+    }
+
+    /**
+     * Scores a position from the running totals Board keeps, blending the middlegame and endgame totals by the game phase
+     * @param board position to score
+     * @return score in centipawns from the point of view of the side to move, positive if it is ahead
+     */
+    public static int evaluate(Board board){
+        int phase = Math.min(board.getPhase(), MAX_PHASE);
+        int score = (board.getMiddlegameScore() * phase + board.getEndgameScore() * (MAX_PHASE - phase)) / MAX_PHASE;
+        return board.isWhiteToMove() ? score : -score;
+    }
+
+    /**
+     * Gives the middlegame value of a piece on a square
+     * @param index piece index from Piece.getIndex()
+     * @param square square index
+     * @return material plus table value, negative for black pieces
+     */
+    public static int middlegame(int index, int square){
+        return MIDDLEGAME[(index << 6) | square];
+    }
+
+    /**
+     * Gives the endgame value of a piece on a square
+     * @param index piece index from Piece.getIndex()
+     * @param square square index
+     * @return material plus table value, negative for black pieces
+     */
+    public static int endgame(int index, int square){
+        return ENDGAME[(index << 6) | square];
+    }
+
+    /**
+     * Gives how much a piece type counts towards the game phase
+     * @param type piece type index
+     * @return phase weight
+     */
+    public static int phase(int type){
+        return PHASE_WEIGHTS[type];
+    }
+}
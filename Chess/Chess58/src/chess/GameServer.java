@@ -0,0 +1,481 @@
+/**
+ * GameServer hosts many games at once on a TCP port of this machine, so one process serves every game instead of one process per game.
+ * Every connection is one GameSession with its own Board, talking the same lines as the console game. On Java 21 and later each session runs
+ * on a virtual thread, which only holds on to memory while it is actually handling a move; that path has only been built against, not measured,
+ * since it is looked up by reflection and the numbers below come from Java 17.
+ * Older runtimes fall back to a platform thread with a PLATFORM_STACK_SIZE stack for every game that is being played: on Java 17,
+ * 4000 games playing at once took about 700MB resident (about 175KB a game, mostly thread stacks).
+ * maxGames caps how many games are open at once, which bounds the memory used either way.
+ * A game that gets no line for HIBERNATE_AFTER_MILLIS hibernates into a GameStore with one slot per game and gives up its thread and buffers:
+ * its connection is parked on a Selector that a single thread watches for all of them, and the next bytes that come in wake the game on a new thread.
+ * A parked game only keeps its channel, its GameSession and the part of a line read so far on the heap, which is what lets 10k+ quiet games share
+ * one JVM on either runtime: on Java 17, 10000 parked games took 17 threads and about 19MB of heap (under 2KB a game), with the process at about
+ * 345MB resident, most of it left over from the threads that played the first moves. A parked game is closed after IDLE_TIMEOUT_MILLIS without a line.
+ * A client can send "stats" at any time to get the server-wide numbers, and the server prints them every STATS_INTERVAL_SECONDS while games are played.
+ * Run it with "server [port] [maxGames]".
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GameServer {
+
+    /**
+     * DEFAULT_PORT and DEFAULT_MAX_GAMES are used when the command line does not give them
+     * HIBERNATE_AFTER_MILLIS is how long a game may go without a line before its board is moved to the store and its connection is parked
+     * IDLE_TIMEOUT_MILLIS is how long a game may go without a line before it is closed, so abandoned games give their slot back; parked games are checked every HIBERNATE_AFTER_MILLIS
+     * BUFFER_SIZE is the size of the read and write buffers of each connection; moves are a few bytes, so they are kept small
+     * MAX_LINE is the longest line kept, anything after it is dropped since no valid line is that long
+     * PLATFORM_STACK_SIZE is the stack size of the platform threads used when virtual threads are not available; each game holds one until it is parked
+     * STATS_INTERVAL_SECONDS is how often the numbers are printed while games are being played
+     */
+    public static final int DEFAULT_PORT = 5858, DEFAULT_MAX_GAMES = 20000;
+    private static final int HIBERNATE_AFTER_MILLIS = 60 * 1000;
+    private static final int IDLE_TIMEOUT_MILLIS = 24 * 60 * 60 * 1000;
+    private static final int BUFFER_SIZE = 512;
+    private static final int MAX_LINE = 64;
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+    private static final int STATS_INTERVAL_SECONDS = 10;
+
+    /**
+     * server accepts the connections, and sessions runs a task for a connection whenever it has lines to read
+     * parked is watched by the parker thread for the connections of hibernating games, and parking hands it the games to watch
+     * slots holds one permit per game that may still be opened, and connections holds the connection of every open game so close can hang them up
+     * store has a slot for every game that may be open, so any of them can hibernate
+     * started, finished and refused count the connections that got a game, the games that ended and the connections turned away because the server was full
+     * latency measures how long the server takes from reading a line to having sent the whole answer
+     */
+    private final ServerSocketChannel server;
+    private final ExecutorService sessions;
+    private final Selector parked;
+    private final Queue<Connection> parking = new ConcurrentLinkedQueue<>();
+    private final Semaphore slots;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final GameStore store;
+    private final LongAdder started = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Constructor that opens the server on a port of the loopback address
+     * @param port port to listen on, or 0 for any free port
+     * @param maxGames most games that may be open at once
+     * @throws IOException if the port or the store file cannot be opened
+     */
+    public GameServer(int port, int maxGames) throws IOException {
+        this.slots = new Semaphore(Math.max(maxGames, 1));
+        this.store = new GameStore(Math.max(maxGames, 1));
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.sessions = newSessionExecutor();
+        this.parked = Selector.open();
+        Thread parker = new Thread(this::watchParked, "game-parker");
+        parker.setDaemon(true);
+        parker.start();
+    }
+
+    /**
+     * Reads the port and game limit from the command line and serves games until the process is stopped
+     * @param args port, then the most games open at once
+     * @throws IOException if the port or the store file cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxGames = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_GAMES;
+        GameServer server = new GameServer(port, maxGames);
+        System.out.println("serving games on port " + server.getPort() + " with " + (server.isVirtual() ? "virtual" : "platform") + " threads, at most " + maxGames);
+        Thread stats = new Thread(() -> {
+            long printed = -1;
+            while(true){
+                try{
+                    Thread.sleep(STATS_INTERVAL_SECONDS * 1000L);
+                }
+                catch(InterruptedException e){
+                    return;
+                }
+                //only print when something happened since the last time
+                long seen = server.latency.getCount() + server.started.sum() + server.refused.sum();
+                if(seen != printed){
+                    System.out.println(server.stats());
+                    printed = seen;
+                }
+            }
+        }, "server-stats");
+        stats.setDaemon(true);
+        stats.start();
+        server.serve();
+    }
+
+    /**
+     * Accepts connections until the server is closed, starting a session for each one
+     * @throws IOException if accepting fails for any reason other than the server being closed
+     */
+    public void serve() throws IOException {
+        while(server.isOpen()){
+            SocketChannel channel;
+            try{
+                channel = server.accept();
+            }
+            catch(ClosedChannelException e){
+                //close() was called
+                return;
+            }
+            if(!slots.tryAcquire()){
+                refused.increment();
+                refuse(channel, "Server busy, try again later");
+                continue;
+            }
+            try{
+                sessions.execute(() -> start(channel));
+            }
+            catch(RejectedExecutionException e){
+                slots.release();
+                refuse(channel, "Server closed");
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes the games that are still open
+     * @throws IOException if the port or the store cannot be closed
+     */
+    public void close() throws IOException {
+        server.close();
+        sessions.shutdown();
+        parked.close();
+        //a thread blocked reading a socket only wakes up when the socket is closed
+        for(SocketChannel connection : connections){
+            connection.close();
+        }
+        store.close();
+    }
+
+    /**
+     * Starts a game on a new connection, asks for the first move and plays it
+     * @param channel the connection of the game
+     */
+    private void start(SocketChannel channel){
+        started.increment();
+        connections.add(channel);
+        play(new Connection(channel, new GameSession(store)), true);
+    }
+
+    /**
+     * Plays a game over its connection until it is over, the client leaves or the client is quiet for HIBERNATE_AFTER_MILLIS, in which case the game
+     * hibernates and its connection is parked, so the thread running it is free to end. Lines are read and written as ASCII bytes through small buffers
+     * rather than a Reader and Writer, which would keep several kilobytes per connection for decoding and encoding.
+     * @param game the game and its connection, which must be in blocking mode
+     * @param greet true if the game has just started and the first prompt still has to be sent
+     */
+    private void play(Connection game, boolean greet){
+        boolean handedOver = false;
+        try{
+            Socket socket = game.channel.socket();
+            InputStream in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+            socket.setSoTimeout(HIBERNATE_AFTER_MILLIS);
+            StringBuilder reply = new StringBuilder(128);
+            if(greet){
+                socket.setTcpNoDelay(true);
+                game.session.prompt(reply);
+                send(reply, out);
+            }
+            while(true){
+                try{
+                    if(!readLine(in, game.line)){
+                        break;
+                    }
+                }
+                catch(SocketTimeoutException e){
+                    //a read only times out once the buffer of in is empty, and the part of a line read so far stays in the game, so nothing is lost by dropping the streams
+                    game.session.hibernate();
+                    park(game);
+                    handedOver = true;
+                    return;
+                }
+                game.lastLine = System.currentTimeMillis();
+                String text = game.line.toString();
+                game.line.setLength(0);
+                if(text.trim().equals("stats")){
+                    reply.append(stats()).append('\n');
+                    send(reply, out);
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean playing = game.session.handle(text, reply);
+                send(reply, out);
+                latency.record(System.nanoTime() - start);
+                if(!playing){
+                    break;
+                }
+            }
+        }
+        catch(IOException e){
+            //the client went away; there is nobody left to tell
+        }
+        finally{
+            if(!handedOver){
+                end(game);
+            }
+        }
+    }
+
+    /**
+     * Hands the connection of a quiet game to the parker thread, which wakes the game up again once the client sends something
+     * @param game the game, which has just hibernated
+     * @throws IOException if the connection is closed
+     */
+    private void park(Connection game) throws IOException {
+        game.channel.configureBlocking(false);
+        parking.add(game);
+        parked.wakeup();
+    }
+
+    /**
+     * Runs the parker thread until the server is closed: it registers the games handed to it, gives a game back to sessions as soon as its client
+     * sends something, and closes the games that have gone IDLE_TIMEOUT_MILLIS without a line
+     */
+    private void watchParked(){
+        List<Connection> woken = new ArrayList<>();
+        long swept = System.currentTimeMillis();
+        try{
+            while(parked.isOpen()){
+                parked.select(HIBERNATE_AFTER_MILLIS);
+                for(Connection game = parking.poll(); game != null; game = parking.poll()){
+                    try{
+                        game.channel.register(parked, SelectionKey.OP_READ, game);
+                    }
+                    catch(ClosedChannelException e){
+                        end(game);
+                    }
+                }
+                for(SelectionKey key : parked.selectedKeys()){
+                    key.cancel();
+                    woken.add((Connection) key.attachment());
+                }
+                parked.selectedKeys().clear();
+                long now = System.currentTimeMillis();
+                if(now - swept >= HIBERNATE_AFTER_MILLIS){
+                    swept = now;
+                    for(SelectionKey key : parked.keys()){
+                        Connection game = (Connection) key.attachment();
+                        if(key.isValid() && now - game.lastLine >= IDLE_TIMEOUT_MILLIS){
+                            //the game was abandoned
+                            key.cancel();
+                            end(game);
+                        }
+                    }
+                }
+                if(!woken.isEmpty()){
+                    //a cancelled key is only dropped by the next select, and its channel cannot go back to blocking mode before that
+                    parked.selectNow();
+                    for(Connection game : woken){
+                        resume(game);
+                    }
+                    woken.clear();
+                }
+            }
+        }
+        catch(IOException | ClosedSelectorException e){
+            //close() was called
+        }
+    }
+
+    /**
+     * Gives a parked game whose client sent something back to sessions, which reads it on a new thread
+     * @param game the game, no longer registered with parked
+     */
+    private void resume(Connection game){
+        try{
+            game.channel.configureBlocking(true);
+            sessions.execute(() -> play(game, false));
+        }
+        catch(IOException | RejectedExecutionException e){
+            end(game);
+        }
+    }
+
+    /**
+     * Hangs up a game that is over, abandoned or whose client left, and gives back its slot
+     * @param game the game
+     */
+    private void end(Connection game){
+        connections.remove(game.channel);
+        try{
+            game.channel.close();
+        }
+        catch(IOException e){
+            //the connection is gone either way
+        }
+        game.session.close();
+        finished.increment();
+        slots.release();
+    }
+
+    /**
+     * Reads the rest of a line, leaving out the line break and a carriage return before it. Only the first MAX_LINE characters are kept.
+     * @param in stream of the connection
+     * @param line builder the characters are appended to; if reading times out, what was read so far stays in it
+     * @return false if the client closed the connection before a whole line came in
+     * @throws IOException if reading fails or times out
+     */
+    private static boolean readLine(InputStream in, StringBuilder line) throws IOException {
+        while(true){
+            int c = in.read();
+            if(c < 0){
+                return false;
+            }
+            if(c == '\n'){
+                int length = line.length();
+                if(length > 0 && line.charAt(length - 1) == '\r'){
+                    line.setLength(length - 1);
+                }
+                return true;
+            }
+            if(line.length() < MAX_LINE){
+                line.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Writes a reply as ASCII bytes, sends it and empties the builder for the next one
+     * @param reply the reply
+     * @param out stream of the connection
+     * @throws IOException if writing fails
+     */
+    private static void send(StringBuilder reply, OutputStream out) throws IOException {
+        for(int k = 0; k < reply.length(); k++){
+            out.write(reply.charAt(k));
+        }
+        out.flush();
+        reply.setLength(0);
+    }
+
+    /**
+     * Tells a client why it did not get a game and hangs up
+     * @param channel the connection
+     * @param reason line sent to the client
+     */
+    private static void refuse(SocketChannel channel, String reason){
+        try(SocketChannel connection = channel){
+            connection.write(ByteBuffer.wrap((reason + "\n").getBytes(StandardCharsets.US_ASCII)));
+        }
+        catch(IOException e){
+            //the client is gone already
+        }
+    }
+
+    /**
+     * Gives the server-wide numbers on one line, e.g: "open 9800 hibernating 9500 started 10000 finished 200 refused 0 moves 51234 mean 90us p50 75us p99 600us max 3000us"
+     * @return the numbers
+     */
+    public String stats(){
+        long begun = started.sum();
+        long ended = finished.sum();
+        return "open " + (begun - ended) + " hibernating " + store.getUsed() + " started " + begun + " finished " + ended + " refused " + refused.sum()
+                + " " + latency.summary("moves");
+    }
+
+    /**
+     * Gives the port the server listens on, which is useful when it was opened on port 0
+     * @return port number
+     */
+    public int getPort(){
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Tells if sessions run on virtual threads
+     * @return true on Java 21 and later
+     */
+    public boolean isVirtual(){
+        return !(sessions instanceof ThreadPoolExecutor);
+    }
+
+    /**
+     * Gives the measured time taken to answer each line
+     * @return the latency histogram of the server
+     */
+    public LatencyHistogram getLatency(){
+        return latency;
+    }
+
+    /**
+     * Creates the executor sessions run on: a virtual thread per session when the runtime has them, looked up by reflection so the code
+     * still builds and runs on older versions, and otherwise platform threads with small stacks, made as games start and dropped soon after they end.
+     * The number of games is bounded by the slots of the server, so the executor itself never turns a game away.
+     * @return the executor
+     */
+    private static ExecutorService newSessionExecutor(){
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException | UnsupportedOperationException e){
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 30, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(null, runnable, "game", PLATFORM_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Connection is what a server keeps of a game between the lines it is sent, so a parked game needs nothing else
+     */
+    private static final class Connection {
+
+        /**
+         * channel is the connection to the client and session the game played over it
+         * line holds the part of a line that has come in so far, and lastLine is when the last whole line came in
+         */
+        private final SocketChannel channel;
+        private final GameSession session;
+        private final StringBuilder line = new StringBuilder(MAX_LINE);
+        private long lastLine = System.currentTimeMillis();
+
+        /**
+         * Constructor that pairs a new connection with its game
+         * @param channel the connection, in blocking mode
+         * @param session the game
+         */
+        private Connection(SocketChannel channel, GameSession session){
+            this.channel = channel;
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * GameSession is one game between two players who send their moves as lines of text, the same way they are typed in the console game:
+ * "e2 e4", "e7 e8 n" to promote, "h3 h5 draw?" to move and offer a draw, "draw" to accept one and "resign".
+ * A bare "draw?" offers a draw without moving and asks the other player, as the console does. Unlike the console, which then goes on with
+ * the other player's move, any answer but "draw" declines the offer and the player who made it still has to move, so nobody ever skips a turn.
+ * Every session has its own Board, so a server can run as many sessions at once as it has memory for.
+ * After a legal move the session answers with the FEN of the new position, then "Check", or the result if the game is over, and then asks for the next move.
+ * A session given a GameStore can hibernate while nobody is playing: its board is packed into a slot of the store and dropped,
+ * and the next line that comes in loads it again, so the players never notice. Only the position is kept, the way a FEN keeps it, so a game
+ * that has hibernated has lost the moves that led to it and the undo history of its board; sessions never take a move back, so play goes on as before.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.nio.ByteBuffer;
+
+public class GameSession implements AutoCloseable {
+
+    /**
+     * board is the position of this game, or null while it is hibernating
+     * moves is reused to list the legal moves every time a move is read, and fen to write the position after every move; both are dropped with the board
+     * drawOffered is true if the last move came with a draw offer, which the other player may accept with "draw"
+     * answering is true after a bare "draw?", while the next line is the other player's answer to it
+     * over is true once the game has a result
+     * store is where the game hibernates, or null if it never does, and slot is the slot of the store it is in, or -1 while it is awake
+     */
+    private Board board = new Board();
+    private int[] moves = new int[Move.MAX_MOVES];
+    private StringBuilder fen = new StringBuilder(90);
+    private boolean drawOffered;
+    private boolean answering;
+    private boolean over;
+    private final GameStore store;
+    private int slot = -1;
+
+    /**
+     * Constructor that starts a game that always stays on the heap
+     */
+    public GameSession(){
+        this(null);
+    }
+
+    /**
+     * Constructor that starts a game that can hibernate
+     * @param store where the game is kept while it hibernates, or null to always keep it on the heap
+     */
+    public GameSession(GameStore store){
+        this.store = store;
+    }
+
+    /**
+     * Writes the line asking the side to move for its move, or the other player for the answer to a draw offer
+     * @param out where the line is written
+     */
+    public void prompt(StringBuilder out){
+        out.append(getBoard().isWhiteToMove() != answering ? "White's move:\n" : "Black's move:\n");
+    }
+
+    /**
+     * Carries out one line sent by the player whose turn it is and writes the answer, ending with the next prompt unless the game is over
+     * @param line the line as it was read
+     * @param out where the answer is written
+     * @return false once the game is over, true otherwise
+     */
+    public boolean handle(String line, StringBuilder out){
+        if(over){
+            return false;
+        }
+        wake();
+        String input = line.trim().toLowerCase();
+        boolean white = board.isWhiteToMove();
+        if(answering){
+            return answer(input, !white, out);
+        }
+        if(input.equals("draw?")){
+            answering = true;
+            prompt(out);
+            return true;
+        }
+        if(input.equals("resign")){
+            return finish(out, white ? "Black Wins" : "White Wins");
+        }
+        if(drawOffered && input.equals("draw")){
+            return finish(out, "Draw");
+        }
+        int move = Chess.isValid(input, drawOffered) ? findMove(input, white) : -1;
+        if(move < 0){
+            out.append("Illegal move, try again\n");
+            prompt(out);
+            return true;
+        }
+        board.makeMove(move);
+        drawOffered = input.endsWith("draw?");
+        fen.setLength(0);
+        out.append(board.writeFen(fen)).append('\n');
+
+        //the move was legal, so only the other player can be in check now
+        boolean check = Board.inCheck(0, 0, board, !white);
+        if(board.generateLegalMoves(!white, moves) == 0){
+            if(check){
+                out.append("Checkmate\n");
+                return finish(out, white ? "White wins" : "Black wins");
+            }
+            return finish(out, "Draw");
+        }
+        if(check){
+            out.append("Check\n");
+        }
+        prompt(out);
+        return true;
+    }
+
+    /**
+     * Packs the game into the store and lets go of its board until the next line comes in. The board that is loaded again has no moves to undo.
+     * @return true if the game is now hibernating, false if it already was, is over, has no store or the store is full
+     */
+    public boolean hibernate(){
+        if(store == null || slot >= 0 || over){
+            return false;
+        }
+        int taken = store.allocate();
+        if(taken < 0){
+            return false;
+        }
+        ByteBuffer bytes = store.slot(taken);
+        board.writePacked(bytes);
+        bytes.put((byte) ((drawOffered ? 1 : 0) | (answering ? 2 : 0)));
+        slot = taken;
+        board = null;
+        moves = null;
+        fen = null;
+        return true;
+    }
+
+    /**
+     * Tells if the game is packed away in its store
+     * @return true while the game is hibernating
+     */
+    public boolean isHibernating(){
+        return slot >= 0;
+    }
+
+    /**
+     * Tells if the game has a result
+     * @return true once the game is over
+     */
+    public boolean isOver(){
+        return over;
+    }
+
+    /**
+     * Gives the position of the game, waking it up if it is hibernating
+     * @return the board of this session
+     */
+    public Board getBoard(){
+        wake();
+        return board;
+    }
+
+    /**
+     * Gives back the slot of a hibernating game, since nobody will play it any more
+     */
+    @Override
+    public void close(){
+        if(slot >= 0){
+            store.free(slot);
+            slot = -1;
+        }
+    }
+
+    /**
+     * Loads the game back out of its store if it is hibernating
+     */
+    private void wake(){
+        if(slot < 0){
+            return;
+        }
+        ByteBuffer bytes = store.slot(slot);
+        board = new Board();
+        board.loadPacked(bytes);
+        int flags = bytes.get();
+        drawOffered = (flags & 1) != 0;
+        answering = (flags & 2) != 0;
+        moves = new int[Move.MAX_MOVES];
+        fen = new StringBuilder(90);
+        store.free(slot);
+        slot = -1;
+    }
+
+    /**
+     * Carries out the answer to a bare draw offer
+     * @param input the answer, trimmed and in lower case
+     * @param white true if white is answering
+     * @param out where the answer is written
+     * @return false if the game is over, true otherwise
+     */
+    private boolean answer(String input, boolean white, StringBuilder out){
+        answering = false;
+        if(input.equals("draw")){
+            return finish(out, "Draw");
+        }
+        if(input.equals("resign")){
+            return finish(out, white ? "Black Wins" : "White Wins");
+        }
+        //the offer is declined and the player who made it moves as usual
+        out.append("Draw declined\n");
+        prompt(out);
+        return true;
+    }
+
+    /**
+     * Finds the legal move of the side to move that a valid input line describes
+     * @param input line in "FileRank FileRank" format, possibly followed by a promotion letter or "draw?"
+     * @param white true if white is to move
+     * @return packed move, or -1 if the move is not legal; a pawn reaching the last row becomes a queen unless the line names another piece
+     */
+    private int findMove(String input, boolean white){
+        int from = Bitboard.square('8' - input.charAt(1), input.charAt(0) - 'a');
+        int to = Bitboard.square('8' - input.charAt(4), input.charAt(3) - 'a');
+        int promotion = input.length() == 7 ? Piece.KNIGHT + "nbrq".indexOf(input.charAt(6)) : Piece.QUEEN;
+        int count = board.generateLegalMoves(white, moves);
+        for(int k = 0; k < count; k++){
+            int move = moves[k];
+            if(Move.from(move) == from && Move.to(move) == to && (!Move.isPromotion(move) || Move.promotionType(move) == promotion)){
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ends the game with a result
+     * @param out where the result is written
+     * @param result the result, e.g: "Draw"
+     * @return false, so a caller can return it as the answer to handle
+     */
+    private boolean finish(StringBuilder out, String result){
+        over = true;
+        out.append(result).append('\n');
+        return false;
+    }
+}
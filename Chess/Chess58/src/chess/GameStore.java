@@ -0,0 +1,118 @@
+/**
+ * GameStore keeps games nobody is playing right now in a memory-mapped file instead of on the heap.
+ * The file is cut into slots of SLOT_SIZE bytes and a game takes one slot while it is stored. The operating system decides which pages
+ * stay in memory and writes the others back to the file, so thousands of idle games cost a few dozen bytes of file each and nothing on the heap.
+ * A slot holds a position and not a game record: the moves played to reach it and the undo history of the board are not stored.
+ * Slots are handed out and given back under a lock, but the bytes of a slot are only ever read and written by the one game holding it.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class GameStore implements Closeable {
+
+    /**
+     * SLOT_SIZE is the number of bytes kept for one game, enough for a packed Board and a byte of state of its own
+     */
+    public static final int SLOT_SIZE = 32;
+
+    /**
+     * channel is the open store file, which is deleted when it is closed, and slots is the whole file mapped into memory
+     * free holds the indexes of the slots not in use in its first freeCount entries
+     */
+    private final FileChannel channel;
+    private final MappedByteBuffer slots;
+    private final int[] free;
+    private int freeCount;
+
+    /**
+     * Constructor that opens a store in a new temporary file
+     * @param capacity number of games the store can hold
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public GameStore(int capacity) throws IOException {
+        this(Files.createTempFile("chess-games", ".bin"), capacity);
+    }
+
+    /**
+     * Constructor that opens a store in a given file, replacing whatever was in it
+     * @param file path of the file, which is deleted again when the store is closed
+     * @param capacity number of games the store can hold
+     * @throws IOException if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if capacity is negative or too large to map at once
+     */
+    public GameStore(Path file, int capacity) throws IOException {
+        if(capacity < 0 || (long) capacity * SLOT_SIZE > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("invalid capacity: " + capacity);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * SLOT_SIZE);
+        free = new int[capacity];
+        //hand out the low slots first, so the pages in use stay together
+        for(int k = 0; k < capacity; k++){
+            free[k] = capacity - 1 - k;
+        }
+        freeCount = capacity;
+    }
+
+    /**
+     * Takes a slot for a game
+     * @return slot index, or -1 if every slot is in use
+     */
+    public synchronized int allocate(){
+        return freeCount == 0 ? -1 : free[--freeCount];
+    }
+
+    /**
+     * Gives a slot back once its game has been read out of it
+     * @param slot slot index given by allocate
+     */
+    public synchronized void free(int slot){
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Gives a view of the bytes of one slot, positioned at its first byte
+     * @param slot slot index given by allocate
+     * @return buffer of SLOT_SIZE bytes backed by the file
+     */
+    public ByteBuffer slot(int slot){
+        return slots.slice(slot * SLOT_SIZE, SLOT_SIZE);
+    }
+
+    /**
+     * Gives the number of games being held
+     * @return slots in use
+     */
+    public synchronized int getUsed(){
+        return free.length - freeCount;
+    }
+
+    /**
+     * Gives the number of games the store can hold
+     * @return number of slots
+     */
+    public int getCapacity(){
+        return free.length;
+    }
+
+    /**
+     * Closes and deletes the file. Views given by slot stay readable until they are garbage collected, but nothing written to them is kept.
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
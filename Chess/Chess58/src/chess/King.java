@@ -8,19 +8,14 @@
 
 package chess;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
 public class King extends Piece {
 
     /**
-     * constructor calls the superclass Piece constructor to assign color and name to each piece
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece: "K" for King
+     * constructor calls the superclass Piece constructor to assign color and type to the piece. It is only called once per color, for the shared pieces of Piece.of
+     * @param color Piece.WHITE or Piece.BLACK
      */
-    public King(String color, String name){
-        super(color,name);
+    King(int color){
+        super(color, KING);
     }
 
     /**
@@ -36,116 +31,40 @@ public class King extends Piece {
      */
     @Override
     public boolean canMove(int sRow, int sCol, int dRow, int dCol,  Board board, Piece prevMove, int [] CoordOfPrevMove) {
-        Piece srcPiece =  Board.getBoard()[sRow][sCol];
-        Piece destPiece = Board.getBoard()[dRow][dCol];
-        Piece wKingSideRook = Board.getBoard()[7][7];
-        Piece bKingSideRook = Board.getBoard()[0][7];
-        Piece wQueenSideRook = Board.getBoard()[7][0];
-        Piece bQueenSideRook = Board.getBoard()[0][0];
-        String color = srcPiece.getColor();
+        Piece srcPiece =  board.getBoard()[sRow][sCol];
+        Piece destPiece = board.getBoard()[dRow][dCol];
         /*
 
         castling rules:
         1) No pieces in between
         2)Rook and King can never have moved
         3)king moves 2 spaces to right or left and rook goes on other side
-        4)Need to make sure you are not putting yourself into check or crossing check... ******* This might take some time... implemnt inCheck first.
+        4)King cannot castle out of check, through an attacked tile or into check (see canCastle)
 
          */
 
-        //white castle
-        if(srcPiece.toString().equals("wK")){
-
-
-
-            //king side castle(bottom-right side)
-
-            if(dRow == 7 && sRow == 7 && (dCol == sCol + 2) && (srcPiece.hasNotMoved && wKingSideRook.hasNotMoved) && (Board.getBoard()[7][6] == null && Board.getBoard()[7][5] == null) ){
-                Board.getBoard()[7][6] = srcPiece;
-                Board.getBoard()[7][5] = wKingSideRook;
-                Board.getBoard()[7][7] = null;
-                srcPiece.hasNotMoved = false;
-                wKingSideRook.hasNotMoved = false;
-                return true;
+        //castling, on the king's own back row: king side to the right, queen side to the left
+        int backRow = isWhite() ? 7 : 0;
+        if(dRow == backRow && sRow == backRow){
+            if(dCol == sCol + 2){
+                return canCastle(sRow, sCol, 7, board);
             }
-
-            //queen side castle(bottom-left side)
-
-            else if(dRow == 7 && sRow == 7 && (dCol == sCol - 2) && (srcPiece.hasNotMoved && wQueenSideRook.hasNotMoved) && (Board.getBoard()[7][1] == null && Board.getBoard()[7][2] == null && Board.getBoard()[7][3] == null) ){
-                Board.getBoard()[7][2] = srcPiece;
-                Board.getBoard()[7][3] = wQueenSideRook;
-                Board.getBoard()[7][0] = null;
-                srcPiece.hasNotMoved = false;
-                wQueenSideRook.hasNotMoved = false;
-                return true;
+            if(dCol == sCol - 2){
+                return canCastle(sRow, sCol, 0, board);
             }
-        }//end white castle
-
-
-        //black castle
-       else if(srcPiece.toString().equals("bK")){
-
-            //king side castle(top-right side)
-
-            if(dRow == 0 && sRow == 0 && (dCol == sCol + 2) && (srcPiece.hasNotMoved && bKingSideRook.hasNotMoved) && (Board.getBoard()[0][6] == null && Board.getBoard()[0][5] == null) ){
-                Board.getBoard()[0][6] = srcPiece;
-                Board.getBoard()[0][5] = bKingSideRook;
-                Board.getBoard()[0][7] = null;
-                srcPiece.hasNotMoved = false;
-                bKingSideRook.hasNotMoved = false;
-                return true;
-            }
-
-            //queen side castle(top-left side)
-
-            if(dRow ==  0 && sRow == 0 && (dCol == sCol - 2) && (srcPiece.hasNotMoved && bQueenSideRook.hasNotMoved) && (Board.getBoard()[0][1] == null && Board.getBoard()[0][2] == null && (Board.getBoard()[0][3] == null)) ){
-                Board.getBoard()[0][2] = srcPiece;
-                Board.getBoard()[0][3] = bQueenSideRook;
-                Board.getBoard()[0][0] = null;
-                srcPiece.hasNotMoved = false;
-                bQueenSideRook.hasNotMoved = false;
-                return true;
-            }
-        }//end black castle
-
-
+        }
 
         //if king tries to capture own piece
         if(srcPiece != null && destPiece != null){
 
-            if(srcPiece.getColor().equals(destPiece.getColor())){
+            if(srcPiece.isWhite() == destPiece.isWhite()){
                 return false;
             }
         }
 
 
-        //moving one diagonal square
-        /*diagonals*/
-        if (dCol == sCol - 1 && (dRow == sRow + 1 || dRow == sRow - 1)) //move left, then up or down
-        {
-            hasNotMoved = false;
-            return true;
-        }
-
-        if (dCol == sCol + 1 && (dRow == sRow + 1 || dRow == sRow - 1)) //move right, then up or down
-        {
-            hasNotMoved = false;
-            return true;
-        }
-
-        //moving vertical one square
-        if((dCol == sCol && (Math.abs(dRow - sRow) == 1) && isPathClear(sRow, sCol, dRow, dCol, board))){
-            hasNotMoved = false;
-            return true;
-        }
-
-        //moving horizontal one square
-        if(sRow == dRow && (Math.abs(dCol - sCol) == 1) && isPathClear(sRow, sCol, dRow, dCol, board)){
-            hasNotMoved = false;
-            return true;
-        }
-
-        return false;
+        //moving one square in any direction, looked up in the precomputed king table
+        return (Bitboard.kingAttacksFrom(Bitboard.square(sRow, sCol)) & (1L << Bitboard.square(dRow, dCol))) != 0;
     }
 
 
@@ -162,40 +81,112 @@ public class King extends Piece {
     public boolean isPathClear(int sRow, int sCol, int dRow, int dCol, Board board) {
         return true;
     }
-    private boolean isLandableSpace(final int row, final int col) {
-        final int lowerBound = 0;
-        final int upperBound = 8 - 1;
-        return row >= lowerBound && col >= lowerBound && row <= upperBound && col <= upperBound
-                && (Board.getBoard()[row][col] == null || !this.getColor().equals(Board.getBoard()[row][col].getColor()));
+    /**
+     * Checks the castling rules for this king and one of its rooks: the player still has that castling right, i.e: neither piece has moved, every tile between them is empty,
+     * and the king is not in check and does not pass through or land on a tile attacked by the enemy.
+     * @param sRow row of the king, which is also the row of the rook
+     * @param sCol column of the king
+     * @param rookCol column of the rook, 7 for king side and 0 for queen side
+     * @param board instance of the game board that the game is being played on
+     * @return true if the king may castle with that rook, false otherwise
+     */
+    public boolean canCastle(int sRow, int sCol, int rookCol, Board board) {
+        Piece[][] gameBoard = board.getBoard();
+        int right = rookCol > sCol ? Board.WHITE_KING_SIDE : Board.WHITE_QUEEN_SIDE;
+        if(!isWhite()){
+            right = rookCol > sCol ? Board.BLACK_KING_SIDE : Board.BLACK_QUEEN_SIDE;
+        }
+        if(sCol != 4 || (board.getCastlingRights() & right) == 0){
+            return false;
+        }
+        int step = rookCol > sCol ? 1 : -1;
+        for(int col = sCol + step; col != rookCol; col += step){
+            if(gameBoard[sRow][col] != null){
+                return false;
+            }
+        }
+        //the tile the king starts on, the tile it crosses and the tile it lands on
+        for(int col = sCol; col != sCol + 3 * step; col += step){
+            if(Board.isSquareAttacked(Bitboard.square(sRow, col), !isWhite(), board)){
+                return false;
+            }
+        }
+        return true;
     }
 
 
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the viable moves that a piece can make into a move buffer as packed ints, including castling
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
      */
-
     @Override
-    public ArrayList<ArrayList<Integer>> listMoves(int sRow, int sCol, Board board) {
-        return new ArrayList<>(Arrays.asList(
-                Arrays.asList(sRow + 1, sCol + 1),
-                Arrays.asList(sRow + 1, sCol - 1),
-                Arrays.asList(sRow - 1, sCol + 1),
-                Arrays.asList(sRow - 1, sCol - 1),
-                Arrays.asList(sRow + 1, sCol + 1),
-                Arrays.asList(sRow + 1, sCol - 1),
-                Arrays.asList(sRow - 1, sCol + 1),
-                Arrays.asList(sRow - 1, sCol - 1)
-        ).stream().filter(move -> isLandableSpace(move.get(0), move.get(1))).map(ArrayList::new).collect(Collectors.toList()));
+    public int listMoves(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        int own = isWhite() ? WHITE : BLACK;
+        long targets = Bitboard.kingAttacksFrom(from) & ~board.getColorBitboard(own);
+        count = addMoves(from, targets, board.getColorBitboard(own ^ 1), moves, count);
+        return addCastling(sRow, sCol, board, moves, count);
     }
 
+    /**
+     * Writes the captures the piece can make into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listCaptures(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        long enemies = board.getColorBitboard(isWhite() ? BLACK : WHITE);
+        return addMoves(from, Bitboard.kingAttacksFrom(from) & enemies, enemies, moves, count);
+    }
 
+    /**
+     * Writes the moves of the piece that do not capture into a move buffer as packed ints, including castling
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listQuiets(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        count = addMoves(from, Bitboard.kingAttacksFrom(from) & ~board.getOccupied(), 0L, moves, count);
+        return addCastling(sRow, sCol, board, moves, count);
+    }
 
-
-
-
+    /**
+     * Writes the castling moves the king can make into a move buffer
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    private int addCastling(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        int homeRow = isWhite() ? 7 : 0;
+        int rights = isWhite() ? Board.WHITE_KING_SIDE | Board.WHITE_QUEEN_SIDE : Board.BLACK_KING_SIDE | Board.BLACK_QUEEN_SIDE;
+        if(sRow == homeRow && (board.getCastlingRights() & rights) != 0){
+            if(canCastle(sRow, sCol, 7, board)){
+                moves[count++] = Move.encode(from, from + 2, Move.KING_CASTLE);
+            }
+            if(canCastle(sRow, sCol, 0, board)){
+                moves[count++] = Move.encode(from, from - 2, Move.QUEEN_CASTLE);
+            }
+        }
+        return count;
+    }
 
 }
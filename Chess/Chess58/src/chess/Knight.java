@@ -7,19 +7,14 @@
 
 package chess;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
 public class Knight extends Piece {
 
     /**
-     * constructor calls the superclass Piece constructor to assign color and name to each piece
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece: "N" for Knight
+     * constructor calls the superclass Piece constructor to assign color and type to the piece. It is only called once per color, for the shared pieces of Piece.of
+     * @param color Piece.WHITE or Piece.BLACK
      */
-    public Knight(String color, String name){
-        super(color,name);
+    Knight(int color){
+        super(color, KNIGHT);
     }
 
 
@@ -36,56 +31,20 @@ public class Knight extends Piece {
      */
     @Override
     public boolean canMove(int sRow, int sCol, int dRow, int dCol,  Board board, Piece prevMove, int [] CoordOfPrevMove) {
-        Piece srcPiece = Board.getBoard()[sRow][sCol];
-        Piece destPiece = Board.getBoard()[dRow][dCol];
-        int upOneRow =  sRow + 1;
-        int upOneCol =  sCol + 1;
-        int upTwoRows = sRow + 2;
-        int upTwoCols = sCol + 2;
-        int downOneRow =  sRow - 1;
-        int downOneCol =  sCol - 1;
-        int downTwoRows = sRow - 2;
-        int downTwoCols = sCol - 2;
+        Piece srcPiece = board.getBoard()[sRow][sCol];
+        Piece destPiece = board.getBoard()[dRow][dCol];
 
         //A knight can move in 2 ways:
         //      1. 2 squares horizontally and one square vertically.
         //      2. 2 squares vertically and one square horizontally.
-
+        //Both are already in the precomputed knight table, so only one lookup is needed.
 
         //PIECE IS BEING CAPTURED
-        if(destPiece != null){
-            if(srcPiece.getColor().equals(destPiece.getColor())) {
-                return false;
-            }
-            //MOVES ONE ROW, BUT TWO COLS
-            if(upOneRow == dRow || downOneRow == dRow){
-                if(upTwoCols == dCol || downTwoCols == dCol){
-                    return true;
-                }
-            }
-            //MOVES TWO ROWS, BUT ONE COL
-            else if(upTwoRows == dRow || downTwoRows == dRow){
-                if(upOneCol == dCol || downOneCol == dCol){
-                    return true;
-                }
-            }
-        }
-        //PIECE IS GOING TO EMPTY TILE
-        else{
-            //MOVES ONE ROW, BUT TWO COLS
-            if(upOneRow == dRow || downOneRow == dRow){
-                if(upTwoCols == dCol || downTwoCols == dCol){
-                    return true;
-                }
-            }
-            //MOVES TWO ROWS, BUT ONE COL
-            else if(upTwoRows == dRow || downTwoRows == dRow){
-                if(upOneCol == dCol || downOneCol == dCol){
-                    return true;
-                }
-            }
+        if(destPiece != null && srcPiece.isWhite() == destPiece.isWhite()){
+            return false;
         }
-        return false;
+        long targets = Bitboard.knightAttacksFrom(Bitboard.square(sRow, sCol));
+        return (targets & (1L << Bitboard.square(dRow, dCol))) != 0;
     }
 
     /**
@@ -104,36 +63,52 @@ public class Knight extends Piece {
 
 
 
-    private boolean isLandableSpace(final int row, final int col) {
-        final int lowerBound = 0;
-        final int upperBound = 8 - 1;
-        return row >= lowerBound && col >= lowerBound && row <= upperBound && col <= upperBound
-                && (Board.getBoard()[row][col] == null || !this.getColor().equals(Board.getBoard()[row][col].getColor()));
+    /**
+     * Writes the viable moves that a piece can make into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listMoves(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        int own = isWhite() ? WHITE : BLACK;
+        long targets = Bitboard.knightAttacksFrom(from) & ~board.getColorBitboard(own);
+        return addMoves(from, targets, board.getColorBitboard(own ^ 1), moves, count);
     }
 
-
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the captures the piece can make into a move buffer as packed ints
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
      */
-
     @Override
-    public ArrayList<ArrayList<Integer>> listMoves(int sRow, int sCol, Board board) {
-        return new ArrayList<>(Arrays.asList(
-                Arrays.asList(sRow + 2, sCol + 1),
-                Arrays.asList(sRow + 2, sCol - 1),
-                Arrays.asList(sRow - 2, sCol + 1),
-                Arrays.asList(sRow - 2, sCol - 1),
-                Arrays.asList(sRow + 1, sCol + 2),
-                Arrays.asList(sRow + 1, sCol - 2),
-                Arrays.asList(sRow - 1, sCol + 2),
-                Arrays.asList(sRow - 1, sCol - 2)
-        ).stream().filter(move -> isLandableSpace(move.get(0), move.get(1))).map(ArrayList::new).collect(Collectors.toList()));
+    public int listCaptures(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        long enemies = board.getColorBitboard(isWhite() ? BLACK : WHITE);
+        return addMoves(from, Bitboard.knightAttacksFrom(from) & enemies, enemies, moves, count);
     }
 
-
+    /**
+     * Writes the moves of the piece that do not capture into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listQuiets(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        return addMoves(from, Bitboard.knightAttacksFrom(from) & ~board.getOccupied(), 0L, moves, count);
+    }
 
 }
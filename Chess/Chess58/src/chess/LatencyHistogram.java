@@ -0,0 +1,127 @@
+/**
+ * LatencyHistogram counts how long something took, e.g: the server answering a move, in a fixed number of buckets so it never grows however much is recorded.
+ * Every power of two of nanoseconds is split into SUB_BUCKETS buckets, so a percentile is off by at most a quarter of its value.
+ * Any number of threads can record at once; nothing is locked and nothing is allocated.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    /**
+     * SUB_BITS is the number of bits below the highest set bit that pick the bucket, and SUB_BUCKETS is the number of buckets per power of two
+     */
+    private static final int SUB_BITS = 2, SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * buckets holds the count of every bucket; durations below SUB_BUCKETS nanoseconds each get a bucket of their own
+     * count and total are the number of durations recorded and their sum in nanoseconds, and max is the longest one
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records one duration
+     * @param nanos the duration in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos){
+        nanos = Math.max(nanos, 0L);
+        buckets.incrementAndGet(bucket(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Gives the number of durations recorded so far
+     * @return duration count
+     */
+    public long getCount(){
+        return count.sum();
+    }
+
+    /**
+     * Gives the average of the durations recorded so far
+     * @return average in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMean(){
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Gives the longest duration recorded so far
+     * @return duration in nanoseconds
+     */
+    public long getMax(){
+        return max.get();
+    }
+
+    /**
+     * Gives a duration that the given fraction of the recorded durations did not go over, e.g: 0.99 for the 99th percentile
+     * @param fraction fraction from 0 to 1
+     * @return upper end of the bucket holding that percentile in nanoseconds, never more than getMax, or 0 if nothing was recorded
+     */
+    public long getPercentile(double fraction){
+        long n = 0;
+        for(int k = 0; k < buckets.length(); k++){
+            n += buckets.get(k);
+        }
+        long rank = (long) Math.ceil(Math.min(Math.max(fraction, 0.0), 1.0) * n);
+        long seen = 0;
+        for(int k = 0; k < buckets.length(); k++){
+            seen += buckets.get(k);
+            if(seen >= Math.max(rank, 1)){
+                return Math.min(upperBound(k), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Writes a one line summary, e.g: "moves 1200 mean 85us p50 70us p99 400us max 2100us"
+     * @param label what is being counted
+     * @return the summary
+     */
+    public String summary(String label){
+        return label + " " + getCount() + " mean " + getMean() / 1000 + "us p50 " + getPercentile(0.5) / 1000
+                + "us p99 " + getPercentile(0.99) / 1000 + "us max " + getMax() / 1000 + "us";
+    }
+
+    /**
+     * Finds the bucket a duration is counted in: the position of its highest set bit, then the SUB_BITS bits just below it
+     * @param nanos duration in nanoseconds, at least 0
+     * @return bucket index
+     */
+    private static int bucket(long nanos){
+        if(nanos < SUB_BUCKETS){
+            return (int) nanos;
+        }
+        int high = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (high - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (high - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gives the longest duration that is counted in a bucket
+     * @param bucket bucket index
+     * @return duration in nanoseconds
+     */
+    private static long upperBound(int bucket){
+        if(bucket < SUB_BUCKETS){
+            return bucket;
+        }
+        int high = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long low = (1L << high) | (sub << (high - SUB_BITS));
+        return low + (1L << (high - SUB_BITS)) - 1;
+    }
+}
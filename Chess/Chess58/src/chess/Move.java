@@ -0,0 +1,143 @@
+/**
+ * Move packs a chess move into a single int so move lists can be written into reusable int arrays instead of lists of boxed coordinates.
+ * Bits 0-5 hold the starting square, bits 6-11 hold the destination square and bits 12-15 hold the flags below.
+ * Squares use the same numbering as Bitboard: row * 8 + col of the board array.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public final class Move {
+
+    /**
+     * Flags stored in the top 4 bits of a move.
+     * QUIET is a normal move to an empty tile, DOUBLE_PUSH is a pawn moving up two tiles,
+     * KING_CASTLE and QUEEN_CASTLE are castling moves, CAPTURE takes the piece on the destination tile,
+     * EN_PASSANT takes the pawn beside the starting tile. PROMOTION is set for every promotion and the lowest
+     * two bits then give the new piece (knight, bishop, rook, queen), so a promotion that captures has both PROMOTION and CAPTURE set.
+     */
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+
+    /**
+     * MAX_MOVES is large enough to hold every move generated for one player in any position
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final char[] PROMOTION_LETTERS = { 'n', 'b', 'r', 'q' };
+
+    private Move(){
+    }
+
+    /**
+     * Packs a move into an int
+     * @param from starting square index
+     * @param to destination square index
+     * @param flags one of the flags of this class
+     * @return the packed move
+     */
+    public static int encode(int from, int to, int flags){
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * Packs a promotion into an int
+     * @param from starting square index
+     * @param to destination square index
+     * @param type type index of the new piece, Piece.KNIGHT through Piece.QUEEN
+     * @param capture true if the promoting pawn takes a piece
+     * @return the packed move
+     */
+    public static int promotion(int from, int to, int type, boolean capture){
+        int flags = PROMOTION | (type - Piece.KNIGHT);
+        if(capture){
+            flags |= CAPTURE;
+        }
+        return encode(from, to, flags);
+    }
+
+    /**
+     * Gives the starting square of a move
+     * @param move packed move
+     * @return starting square index
+     */
+    public static int from(int move){
+        return move & 63;
+    }
+
+    /**
+     * Gives the destination square of a move
+     * @param move packed move
+     * @return destination square index
+     */
+    public static int to(int move){
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Gives the flags of a move
+     * @param move packed move
+     * @return flags of the move
+     */
+    public static int flags(int move){
+        return (move >>> 12) & 15;
+    }
+
+    /**
+     * Tells if a move takes an enemy piece, including en passant
+     * @param move packed move
+     * @return true if the move is a capture
+     */
+    public static boolean isCapture(int move){
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    /**
+     * Tells if a move is a pawn promotion
+     * @param move packed move
+     * @return true if the move promotes a pawn
+     */
+    public static boolean isPromotion(int move){
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * Gives the piece a pawn is promoted to
+     * @param move packed promotion
+     * @return type index of the new piece, Piece.KNIGHT through Piece.QUEEN
+     */
+    public static int promotionType(int move){
+        return Piece.KNIGHT + (flags(move) & 3);
+    }
+
+    /**
+     * Creates a string representation of a move in coordinate notation e.g: "e2e4" or "e7e8q"
+     * @param move packed move
+     * @return string representation of the move
+     */
+    public static String toString(int move){
+        StringBuilder builder = new StringBuilder(5);
+        appendSquare(builder, from(move));
+        appendSquare(builder, to(move));
+        if(isPromotion(move)){
+            builder.append(PROMOTION_LETTERS[promotionType(move) - Piece.KNIGHT]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the file and rank of a square e.g: "e2"
+     * @param builder builder the square is written into
+     * @param square square index
+     */
+    private static void appendSquare(StringBuilder builder, int square){
+        builder.append((char) ('a' + Bitboard.col(square)));
+        builder.append((char) ('8' - Bitboard.row(square)));
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * MovePicker hands the search the moves of a position one at a time, best guesses first, and only generates a group of moves once it is needed.
+ * The order is: the move the transposition table remembers, captures with the most valuable victim and least valuable attacker first (MVV-LVA),
+ * the two killer moves of the ply (quiet moves that caused a cutoff in a sibling position), and finally the other quiet moves by their history score.
+ * Alpha-beta cuts off most positions after the first move or two, so most of the time the quiet moves are never generated at all.
+ * Moves are pseudo-legal, just like generateMoves; the search still has to skip the ones that leave its king in check.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public final class MovePicker {
+
+    /**
+     * The stages the picker walks through in order. next() falls through to the following stage once one runs out of moves.
+     */
+    private static final int STAGE_HASH = 0, STAGE_CAPTURES_INIT = 1, STAGE_CAPTURES = 2, STAGE_FIRST_KILLER = 3,
+            STAGE_SECOND_KILLER = 4, STAGE_QUIETS_INIT = 5, STAGE_QUIETS = 6, STAGE_DONE = 7;
+
+    /**
+     * moves and scores hold the moves of the current stage and their ordering scores; index is the next one to hand out
+     * board is the position the moves belong to
+     * hashMove, firstKiller and secondKiller are the moves tried before their stage is generated, or 0 for none
+     * history is the table of quiet move scores, indexed by piece index * 64 + destination square
+     * capturesOnly is true for the quiescence search, which stops after the captures
+     */
+    private final int[] moves = new int[Move.MAX_MOVES];
+    private final int[] scores = new int[Move.MAX_MOVES];
+    private int count;
+    private int index;
+    private int stage;
+    private Board board;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int[] history;
+    private boolean capturesOnly;
+
+    /**
+     * Prepares the picker to hand out every move of a position
+     * @param board position to pick moves for
+     * @param hashMove best move the transposition table remembers, or 0 for none
+     * @param firstKiller most recent killer move of this ply, or 0 for none
+     * @param secondKiller older killer move of this ply, or 0 for none
+     * @param history quiet move scores, indexed by piece index * 64 + destination square
+     */
+    public void init(Board board, int hashMove, int firstKiller, int secondKiller, int[] history){
+        this.board = board;
+        this.hashMove = hashMove;
+        this.firstKiller = isKiller(firstKiller) ? firstKiller : 0;
+        this.secondKiller = isKiller(secondKiller) ? secondKiller : 0;
+        this.history = history;
+        capturesOnly = false;
+        stage = STAGE_HASH;
+    }
+
+    /**
+     * Prepares the picker to hand out only the captures (and queen promotions) of a position
+     * @param board position to pick moves for
+     */
+    public void initCaptures(Board board){
+        this.board = board;
+        hashMove = 0;
+        firstKiller = 0;
+        secondKiller = 0;
+        capturesOnly = true;
+        stage = STAGE_CAPTURES_INIT;
+    }
+
+    /**
+     * Gives the next move to search. Each stage falls through to the next one once it has nothing left to hand out.
+     * @return packed move, or 0 once every move has been handed out
+     */
+    @SuppressWarnings("fallthrough")
+    public int next(){
+        switch(stage){
+            case STAGE_HASH:
+                stage = STAGE_CAPTURES_INIT;
+                if(hashMove != 0 && board.isPseudoLegal(hashMove)){
+                    return hashMove;
+                }
+                //fall through
+            case STAGE_CAPTURES_INIT:
+                count = board.generateCaptures(board.isWhiteToMove(), moves);
+                for(int k = 0; k < count; k++){
+                    scores[k] = captureScore(board, moves[k]);
+                }
+                index = 0;
+                stage = STAGE_CAPTURES;
+                //fall through
+            case STAGE_CAPTURES:
+                while(index < count){
+                    int move = pickBest();
+                    if(move != hashMove){
+                        return move;
+                    }
+                }
+                if(capturesOnly){
+                    stage = STAGE_DONE;
+                    return 0;
+                }
+                stage = STAGE_FIRST_KILLER;
+                //fall through
+            case STAGE_FIRST_KILLER:
+                stage = STAGE_SECOND_KILLER;
+                if(firstKiller != 0 && firstKiller != hashMove && board.isPseudoLegal(firstKiller)){
+                    return firstKiller;
+                }
+                //fall through
+            case STAGE_SECOND_KILLER:
+                stage = STAGE_QUIETS_INIT;
+                if(secondKiller != 0 && secondKiller != hashMove && secondKiller != firstKiller && board.isPseudoLegal(secondKiller)){
+                    return secondKiller;
+                }
+                //fall through
+            case STAGE_QUIETS_INIT:
+                count = board.generateQuiets(board.isWhiteToMove(), moves);
+                Piece[][] pieces = board.getBoard();
+                for(int k = 0; k < count; k++){
+                    int from = Move.from(moves[k]);
+                    scores[k] = history[(pieces[Bitboard.row(from)][Bitboard.col(from)].getIndex() << 6) | Move.to(moves[k])];
+                }
+                index = 0;
+                stage = STAGE_QUIETS;
+                //fall through
+            case STAGE_QUIETS:
+                while(index < count){
+                    int move = pickBest();
+                    if(move != hashMove && move != firstKiller && move != secondKiller){
+                        return move;
+                    }
+                }
+                stage = STAGE_DONE;
+                //fall through
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Scores a capture for ordering: the most valuable victim first, and among equal victims the least valuable attacker first (MVV-LVA)
+     * @param board position the capture is made in
+     * @param move packed capture or promotion
+     * @return ordering score, higher is searched first
+     */
+    public static int captureScore(Board board, int move){
+        Piece[][] pieces = board.getBoard();
+        int to = Move.to(move);
+        int from = Move.from(move);
+        int gain = 0;
+        if(Move.flags(move) == Move.EN_PASSANT){
+            gain = Evaluation.PIECE_VALUES[Piece.PAWN];
+        }
+        else if(Move.isCapture(move)){
+            gain = Evaluation.PIECE_VALUES[pieces[Bitboard.row(to)][Bitboard.col(to)].getType()];
+        }
+        if(Move.isPromotion(move)){
+            gain += Evaluation.PIECE_VALUES[Move.promotionType(move)] - Evaluation.PIECE_VALUES[Piece.PAWN];
+        }
+        return gain * 8 - pieces[Bitboard.row(from)][Bitboard.col(from)].getType();
+    }
+
+    /**
+     * Tells if a move can be tried in the killer stage. Captures and promotions are handed out by the other stages, so they are never used as killers.
+     * @param move packed move, or 0 for none
+     * @return true if the move is a quiet move
+     */
+    private static boolean isKiller(int move){
+        return move != 0 && !Move.isCapture(move) && !Move.isPromotion(move);
+    }
+
+    /**
+     * Swaps the highest scored move left in the stage to the front of what is left and hands it out. Only the moves actually
+     * handed out are sorted, which is cheaper than sorting the whole list when a cutoff comes early.
+     * @return packed move
+     */
+    private int pickBest(){
+        int best = index;
+        for(int k = index + 1; k < count; k++){
+            if(scores[k] > scores[best]){
+                best = k;
+            }
+        }
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+        index++;
+        return move;
+    }
+}
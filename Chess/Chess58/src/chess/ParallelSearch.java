@@ -0,0 +1,226 @@
+/**
+ * ParallelSearch runs the search on several threads at once in the "Lazy SMP" style. Every thread searches the same position on its own copy of the
+ * board, and they only talk to each other through one shared transposition table. A thread that finishes a line stores it, and the other threads
+ * pick the result up instead of searching it again, so together they reach a depth sooner than one thread would.
+ * Run it with "smp depth [threads] [moves...]" to time the search to a depth with 1, 2, 4... up to the given number of threads.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ParallelSearch {
+
+    /**
+     * table is the transposition table every thread shares
+     * searches holds one search per thread; the first one runs on the calling thread and decides the move
+     * pool runs the helper searches, or is null when there is only one thread
+     * nodes is the number of positions all threads visited during the last search
+     */
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService pool;
+    private long nodes;
+
+    /**
+     * Constructor that creates a parallel search with its own transposition table
+     * @param threads number of threads to search with, at least 1
+     */
+    public ParallelSearch(int threads){
+        this(threads, new TranspositionTable(Search.DEFAULT_HASH_MB));
+    }
+
+    /**
+     * Constructor that creates a parallel search sharing the given transposition table
+     * @param threads number of threads to search with, at least 1
+     * @param table transposition table every thread reads and writes
+     */
+    public ParallelSearch(int threads, TranspositionTable table){
+        this(threads, table, null);
+    }
+
+    /**
+     * Constructor that creates a parallel search sharing the given transposition table, whose main thread prints an info line after every finished depth
+     * @param threads number of threads to search with, at least 1
+     * @param table transposition table every thread reads and writes
+     * @param info stream the main thread prints on, or null to stay quiet
+     */
+    public ParallelSearch(int threads, TranspositionTable table, PrintStream info){
+        this.table = table;
+        searches = new Search[Math.max(threads, 1)];
+        for(int i = 0; i < searches.length; i++){
+            searches[i] = new Search(table, i == 0 ? info : null);
+            //half of the helpers run one depth ahead so the threads do not all search the same tree in lockstep
+            searches[i].setFirstDepth(1 + (i & 1));
+            searches[i].setAgesTable(false);
+        }
+        if(searches.length > 1){
+            pool = Executors.newFixedThreadPool(searches.length - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        else{
+            pool = null;
+        }
+    }
+
+    /**
+     * Reads the depth, the highest thread count and optional moves from the command line, then times the search to that depth
+     * with 1, 2, 4... threads and prints the nodes per second and the speedup over one thread for each
+     * @param args depth, optionally followed by the highest thread count and moves in coordinate notation
+     */
+    public static void main(String[] args){
+        if(args.length < 1){
+            System.out.println("Usage: smp <depth> [threads] [moves...]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Board board = new Board();
+        for(int i = 2; i < args.length; i++){
+            int move = Perft.findMove(board, args[i]);
+            if(move < 0 || !board.playMove(move)){
+                System.out.println("Illegal move: " + args[i]);
+                return;
+            }
+        }
+        //one untimed search first so the one-thread baseline is not paying for JIT compilation
+        ParallelSearch warmup = new ParallelSearch(1);
+        warmup.search(board, Math.max(depth - 1, 1), 0);
+        warmup.shutdown();
+        long baseline = 0;
+        for(int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)){
+            ParallelSearch search = new ParallelSearch(threads);
+            long start = System.nanoTime();
+            int move = search.search(board, depth, 0);
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+            search.shutdown();
+            if(threads == 1){
+                baseline = elapsed;
+            }
+            System.out.println("threads " + threads + " depth " + depth + " time " + (elapsed / 1000000) + " ms nodes " + search.getNodes()
+                    + " nps " + (search.getNodes() * 1000000000L / elapsed) + " speedup " + String.format("%.2f", (double) baseline / elapsed)
+                    + " bestmove " + (move < 0 ? "(none)" : Move.toString(move)));
+        }
+    }
+
+    /**
+     * Finds the best move for the side to move using every thread. The calling thread runs the main search; once it is done the helpers are stopped.
+     * @param board position to search, which is not changed
+     * @param maxDepth deepest iteration to run
+     * @param timeLimitMillis time budget in milliseconds, or 0 for no limit
+     * @return best packed move, or -1 if the side to move has no legal move
+     */
+    public int search(Board board, int maxDepth, long timeLimitMillis){
+        return search(board, maxDepth, TimeManager.fixed(timeLimitMillis));
+    }
+
+    /**
+     * Finds the best move for the side to move using every thread. The main search follows the time limits, and the helpers only stop with it.
+     * @param board position to search, which is not changed
+     * @param maxDepth deepest iteration to run
+     * @param time soft and hard time limits for this move
+     * @return best packed move, or -1 if the side to move has no legal move
+     */
+    public int search(Board board, int maxDepth, TimeManager time){
+        table.newSearch();
+        Future<?>[] helpers = new Future<?>[searches.length - 1];
+        for(int i = 1; i < searches.length; i++){
+            Search helper = searches[i];
+            Board copy = new Board(board);
+            helpers[i - 1] = pool.submit(() -> helper.search(copy, Search.MAX_PLY, TimeManager.fixed(time.getHardMillis())));
+        }
+        int move = searches[0].search(new Board(board), maxDepth, time);
+        nodes = searches[0].getNodes();
+        for(int i = 1; i < searches.length; i++){
+            waitFor(searches[i], helpers[i - 1]);
+            nodes += searches[i].getNodes();
+        }
+        return move;
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can; the helpers stop together with the main thread.
+     * A request made before the search started is forgotten when it starts.
+     */
+    public void stop(){
+        searches[0].stop();
+    }
+
+    /**
+     * Gives the score the main thread found in the last search
+     * @return score in centipawns, or near Search.MATE for a forced checkmate
+     */
+    public int getScore(){
+        return searches[0].getScore();
+    }
+
+    /**
+     * Gives the deepest iteration the main thread finished in the last search
+     * @return depth in plies
+     */
+    public int getDepth(){
+        return searches[0].getDepth();
+    }
+
+    /**
+     * Gives the number of positions all threads visited during the last search
+     * @return node count
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * Gives the transposition table the threads share
+     * @return the transposition table
+     */
+    public TranspositionTable getTable(){
+        return table;
+    }
+
+    /**
+     * Stops the helper threads for good. The search cannot be used afterwards.
+     */
+    public void shutdown(){
+        if(pool != null){
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Stops a helper search and waits until its thread is done with it
+     * @param helper the helper search
+     * @param future the task running it
+     */
+    private static void waitFor(Search helper, Future<?> future){
+        while(true){
+            //a helper that has not started yet forgets the request when it does, so keep asking until it is finished
+            helper.stop();
+            try{
+                future.get(1, TimeUnit.MILLISECONDS);
+                return;
+            }
+            catch(TimeoutException e){
+                continue;
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch(ExecutionException e){
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+}
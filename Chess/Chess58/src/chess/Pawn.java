@@ -6,28 +6,14 @@
 
 package chess;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
 public class Pawn extends Piece {
-    public boolean HasMadeFirstMove() {
-        return hasMadeFirstMove;
-    }
-
-    public void setHasMadeFirstMove(boolean hasMadeFirstMove) {
-        this.hasMadeFirstMove = hasMadeFirstMove;
-    }
 
-    private boolean hasMadeFirstMove;
     /**
-     * constructor calls the superclass Piece constructor to assign color and name to each piece
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece: "P" for Pawn
+     * constructor calls the superclass Piece constructor to assign color and type to the piece. It is only called once per color, for the shared pieces of Piece.of
+     * @param color Piece.WHITE or Piece.BLACK
      */
-    public Pawn(String color, String name){
-        super(color,name);
-        this.hasMadeFirstMove = false;
-        this.enpassant = false;
+    Pawn(int color){
+        super(color, PAWN);
     }
 
 
@@ -47,40 +33,35 @@ public class Pawn extends Piece {
         Piece[][] gameBoard = board.getBoard();
         Piece sPiece = gameBoard[sRow][sCol];
         Piece dPiece = gameBoard[dRow][dCol];
-        String color = sPiece.getColor();
         if(sPiece != null && dPiece != null){
-            if(sPiece.getColor().equals(dPiece.getColor())){
+            if(sPiece.isWhite() == dPiece.isWhite()){
                 return false;
             }
         }
+        //the last move was a pawn moving two tiles
+        boolean enpassant = Pawn.class.isInstance(prevMove) && Math.abs(CoordOfPrevMove[2] - CoordOfPrevMove[0]) == 2;
 
         //white pawn
-        if(color.equals("w")){ //ex: c2 c3
+        if(isWhite()){ //ex: c2 c3
             //white enpassant
-            if(Pawn.class.isInstance(prevMove) && prevMove.enpassant) {
+            if(enpassant) {
                 int prevMoveRow = CoordOfPrevMove[2];
                 int prevMoveCol = CoordOfPrevMove[3];
                 if ((prevMoveRow == 3 && sRow == 3) && (Math.abs(sCol - prevMoveCol) == 1)) {
                     if (dRow == 2 && dCol == prevMoveCol) {
-                        //update board pawn indirectly captured
-                        gameBoard[prevMoveRow][prevMoveCol] = null;
                         return true;
                     }
                 }
             }//end enpassant
 
             if((dCol == sCol && dRow == sRow- 1) && isPathClear(sRow, sCol, dRow, dCol, board)){
-                hasMadeFirstMove = true;
                 return true;
             }
-            else if((dCol == sCol && dRow == sRow- 2) && !hasMadeFirstMove && isPathClear(sRow, sCol, dRow, dCol, board)){
-                enpassant = true;
-                hasMadeFirstMove = true;
+            else if((dCol == sCol && dRow == sRow- 2) && sRow == 6 && isPathClear(sRow, sCol, dRow, dCol, board)){
                 return true;
             }
             //pawn is capturing an enemy piece
             else if(((dCol == sCol + 1 && dRow == sRow- 1) ||(dCol == sCol - 1 && dRow == sRow- 1) ) && dPiece != null && isPathClear(sRow, sCol, dRow, dCol, board)){
-                hasMadeFirstMove = true;
                 return true;
             }
             //
@@ -89,29 +70,23 @@ public class Pawn extends Piece {
         //black pawn
         else{
             //black enpassant
-            if(Pawn.class.isInstance(prevMove) && prevMove.enpassant) {
+            if(enpassant) {
                 int prevMoveRow = CoordOfPrevMove[2];
                 int prevMoveCol = CoordOfPrevMove[3];
                 if ((prevMoveRow == 4 && sRow == 4) && (Math.abs(sCol - prevMoveCol) == 1)) {
                     if (dRow == 5 && dCol == prevMoveCol) {
-                        //update board pawn indirectly captured
-                        gameBoard[prevMoveRow][prevMoveCol] = null;
                         return true;
                     }
                 }
             } // end enpassant
 
             if((dCol == sCol && dRow == sRow + 1) && isPathClear(sRow, sCol, dRow, dCol, board)){
-                hasMadeFirstMove = true;
                 return true;
             }
-            else if((dCol == sCol && dRow == sRow + 2) && !hasMadeFirstMove && isPathClear(sRow, sCol, dRow, dCol, board)){
-                enpassant = true;
-                hasMadeFirstMove = true;
+            else if((dCol == sCol && dRow == sRow + 2) && sRow == 1 && isPathClear(sRow, sCol, dRow, dCol, board)){
                 return true;
             }
             else if(((dCol == sCol + 1 && dRow == sRow + 1) ||(dCol == sCol - 1 && dRow == sRow + 1) ) && dPiece != null && isPathClear(sRow, sCol, dRow, dCol, board)){
-                hasMadeFirstMove = true;
                 return true;
             }
             //
@@ -137,7 +112,6 @@ public class Pawn extends Piece {
         Piece[][] gameBoard = board.getBoard();
         Piece sPiece = gameBoard[sRow][sCol];
         Piece dPiece = gameBoard[dRow][dCol];
-        String color = sPiece.getColor();
         //is moving vertically 1 square
         if(sCol == dCol && (dRow == sRow - 1 || dRow == sRow + 1)){
             if(dPiece != null){
@@ -146,12 +120,12 @@ public class Pawn extends Piece {
         }
         //white is moving vertically 2 squares
 
-        else if(sCol == dCol && (dRow == sRow - 2 || dRow == sRow + 2) && color.equals("w")){
+        else if(sCol == dCol && (dRow == sRow - 2 || dRow == sRow + 2) && sPiece.isWhite()){
            Piece tempPiece = gameBoard[dRow + 1][sCol];
             return dPiece == null && tempPiece == null;
         }
         //black is moving vertically 2 squares
-        else if(sCol == dCol && (dRow == sRow - 2 || dRow == sRow + 2) && color.equals("b")){
+        else if(sCol == dCol && (dRow == sRow - 2 || dRow == sRow + 2) && !sPiece.isWhite()){
             Piece tempPiece = gameBoard[dRow - 1][sCol];
             return dPiece == null && tempPiece == null;
         }
@@ -161,37 +135,147 @@ public class Pawn extends Piece {
     }
 
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the viable moves that a piece can make into a move buffer as packed ints.
+     * A pawn reaching the last row is written once for every piece it can be promoted to.
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
      */
     @Override
-    public ArrayList<ArrayList<Integer>> listMoves(int sRow, int sCol, Board board) {
-        ArrayList<ArrayList<Integer>> moves = new ArrayList<>();
+    public int listMoves(int sRow, int sCol, Board board, int[] moves, int count) {
         Piece[][] pieces = board.getBoard();
-        String color = this.getColor();
-        int modifier = "b".equals(color) ? 1 : -1;
-        // Forward check
+        int modifier = isWhite() ? -1 : 1;
+        int startRow = isWhite() ? 6 : 1;
+        int lastRow = isWhite() ? 0 : 7;
+        int from = Bitboard.square(sRow, sCol);
         int forwardRow = sRow + modifier;
-        if (forwardRow >= 0
-                && forwardRow <= 7
-                && (pieces[forwardRow][sCol] == null)) {
-            moves.add(new ArrayList<>(Arrays.asList(forwardRow, sCol)));
+        if (forwardRow < 0 || forwardRow > 7) {
+            return count;
+        }
+        // Forward check
+        if (pieces[forwardRow][sCol] == null) {
+            count = addPawnMove(from, Bitboard.square(forwardRow, sCol), forwardRow == lastRow, false, moves, count);
             // Double forward check
-            int doubleForwardRow = sRow + modifier + modifier;
-            if (!this.hasMadeFirstMove && pieces[doubleForwardRow][sCol] == null) {
-                moves.add(new ArrayList<>(Arrays.asList(doubleForwardRow, sCol)));
+            int doubleForwardRow = forwardRow + modifier;
+            if (sRow == startRow && pieces[doubleForwardRow][sCol] == null) {
+                moves[count++] = Move.encode(from, Bitboard.square(doubleForwardRow, sCol), Move.DOUBLE_PUSH);
             }
         }
-        // Left check
-        // Right check
+        return addCaptures(sRow, sCol, forwardRow, forwardRow == lastRow, board, moves, count);
+    }
 
-        // En passant check
-        return moves;
+    /**
+     * Writes the captures the pawn can make into a move buffer, including en passant.
+     * A push onto the last row is written too, but only as a queen promotion, since it changes the material balance just like a capture.
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listCaptures(int sRow, int sCol, Board board, int[] moves, int count) {
+        int forwardRow = sRow + (isWhite() ? -1 : 1);
+        if (forwardRow < 0 || forwardRow > 7) {
+            return count;
+        }
+        boolean promotes = forwardRow == (isWhite() ? 0 : 7);
+        if (promotes && board.getBoard()[forwardRow][sCol] == null) {
+            moves[count++] = Move.promotion(Bitboard.square(sRow, sCol), Bitboard.square(forwardRow, sCol), QUEEN, false);
+        }
+        return addCaptures(sRow, sCol, forwardRow, promotes, board, moves, count);
     }
 
+    /**
+     * Writes the moves of the pawn that listCaptures leaves out into a move buffer: pushes, and pushes onto the last row that promote to anything but a queen
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listQuiets(int sRow, int sCol, Board board, int[] moves, int count) {
+        Piece[][] pieces = board.getBoard();
+        int modifier = isWhite() ? -1 : 1;
+        int startRow = isWhite() ? 6 : 1;
+        int from = Bitboard.square(sRow, sCol);
+        int forwardRow = sRow + modifier;
+        if (forwardRow < 0 || forwardRow > 7 || pieces[forwardRow][sCol] != null) {
+            return count;
+        }
+        int to = Bitboard.square(forwardRow, sCol);
+        if (forwardRow == (isWhite() ? 0 : 7)) {
+            moves[count++] = Move.promotion(from, to, ROOK, false);
+            moves[count++] = Move.promotion(from, to, BISHOP, false);
+            moves[count++] = Move.promotion(from, to, KNIGHT, false);
+            return count;
+        }
+        moves[count++] = Move.encode(from, to, Move.QUIET);
+        int doubleForwardRow = forwardRow + modifier;
+        if (sRow == startRow && pieces[doubleForwardRow][sCol] == null) {
+            moves[count++] = Move.encode(from, Bitboard.square(doubleForwardRow, sCol), Move.DOUBLE_PUSH);
+        }
+        return count;
+    }
 
+    /**
+     * Writes the diagonal captures and the en passant capture of the pawn into a move buffer
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param forwardRow row the pawn moves onto
+     * @param promotes true if that row is the last row
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    private int addCaptures(int sRow, int sCol, int forwardRow, boolean promotes, Board board, int[] moves, int count) {
+        Piece[][] pieces = board.getBoard();
+        int from = Bitboard.square(sRow, sCol);
+        // Left check
+        if (sCol > 0 && pieces[forwardRow][sCol - 1] != null && pieces[forwardRow][sCol - 1].isWhite() != isWhite()) {
+            count = addPawnMove(from, Bitboard.square(forwardRow, sCol - 1), promotes, true, moves, count);
+        }
+        // Right check
+        if (sCol < 7 && pieces[forwardRow][sCol + 1] != null && pieces[forwardRow][sCol + 1].isWhite() != isWhite()) {
+            count = addPawnMove(from, Bitboard.square(forwardRow, sCol + 1), promotes, true, moves, count);
+        }
+        // En passant check: the last move was an enemy pawn moving two tiles to land right beside this pawn
+        Piece prevMove = board.prevMove;
+        int[] coord = board.startingCoord;
+        if (Pawn.class.isInstance(prevMove) && prevMove.isWhite() != isWhite()
+                && Math.abs(coord[2] - coord[0]) == 2 && coord[2] == sRow && Math.abs(coord[3] - sCol) == 1) {
+            moves[count++] = Move.encode(from, Bitboard.square(forwardRow, coord[3]), Move.EN_PASSANT);
+        }
+        return count;
+    }
+
+    /**
+     * Writes a single pawn move into a move buffer, or all four promotions if the pawn lands on the last row
+     * @param from starting square index
+     * @param to destination square index
+     * @param promotes true if the destination is on the last row
+     * @param capture true if the pawn takes a piece
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    private static int addPawnMove(int from, int to, boolean promotes, boolean capture, int[] moves, int count) {
+        if (!promotes) {
+            moves[count++] = Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET);
+            return count;
+        }
+        moves[count++] = Move.promotion(from, to, QUEEN, capture);
+        moves[count++] = Move.promotion(from, to, ROOK, capture);
+        moves[count++] = Move.promotion(from, to, BISHOP, capture);
+        moves[count++] = Move.promotion(from, to, KNIGHT, capture);
+        return count;
+    }
 
 }
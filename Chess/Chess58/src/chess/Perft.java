@@ -0,0 +1,131 @@
+/**
+ * Perft counts every legal move sequence up to a given depth. The counts for well known positions are published,
+ * so comparing against them proves that move generation and makeMove/unmakeMove follow the rules, and timing the count measures how fast they are.
+ * Moves come from the legal move generator, so on the last ply the moves only have to be counted, not made.
+ * Run it with "perft depth [moves...]", where the optional moves (e.g: "e2e4 e7e5") are played from the starting position before counting.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public class Perft {
+
+    /**
+     * buffers holds one move buffer per ply so counting does not allocate move lists
+     */
+    private final int[][] buffers;
+
+    /**
+     * Constructor that prepares move buffers for counting up to a given depth
+     * @param maxDepth deepest count this instance will be asked for
+     */
+    public Perft(int maxDepth){
+        buffers = new int[Math.max(maxDepth, 1)][Move.MAX_MOVES];
+    }
+
+    /**
+     * Reads the depth and optional moves from the command line, then prints the divide counts, total nodes and nodes per second
+     * @param args depth followed by moves in coordinate notation
+     */
+    public static void main(String[] args){
+        if(args.length < 1){
+            System.out.println("Usage: perft <depth> [moves...]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        Board board = new Board();
+        for(int i = 1; i < args.length; i++){
+            int move = findMove(board, args[i]);
+            if(move < 0 || !board.playMove(move)){
+                System.out.println("Illegal move: " + args[i]);
+                return;
+            }
+        }
+        new Perft(depth).divide(board, depth);
+    }
+
+    /**
+     * Counts the leaf nodes of the move tree below every legal move of the side to move and prints them, followed by the total and the speed
+     * @param board position to count from, which is back in the same state when this returns
+     * @param depth number of plies to count
+     * @return total number of leaf nodes
+     */
+    public long divide(Board board, int depth){
+        long start = System.nanoTime();
+        long total = 0;
+        if(depth < 1){
+            total = 1;
+        }
+        else{
+            boolean white = board.isWhiteToMove();
+            int[] moves = buffers[0];
+            int count = board.generateLegalMoves(white, moves);
+            for(int k = 0; k < count; k++){
+                board.makeMove(moves[k]);
+                long nodes = count(board, depth - 1, 1);
+                System.out.println(Move.toString(moves[k]) + ": " + nodes);
+                total += nodes;
+                board.unmakeMove();
+            }
+        }
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        System.out.println();
+        System.out.println("Nodes: " + total);
+        System.out.println("Time: " + (elapsed / 1000000) + " ms");
+        System.out.println("Nodes/second: " + (total * 1000000000L / elapsed));
+        return total;
+    }
+
+    /**
+     * Counts the leaf nodes of the move tree below a position
+     * @param board position to count from, which is back in the same state when this returns
+     * @param depth number of plies to count
+     * @return number of leaf nodes
+     */
+    public long perft(Board board, int depth){
+        return count(board, depth, 0);
+    }
+
+    /**
+     * Recursive part of perft. Every move is made and taken back on the same board, so nothing is copied or allocated.
+     * @param board position to count from, which is back in the same state when this returns
+     * @param depth number of plies left
+     * @param ply number of plies already played, used to pick the move buffer
+     * @return number of leaf nodes
+     */
+    private long count(Board board, int depth, int ply){
+        if(depth == 0){
+            return 1;
+        }
+        int[] moves = buffers[ply];
+        int count = board.generateLegalMoves(board.isWhiteToMove(), moves);
+        if(depth == 1){
+            return count;
+        }
+        long nodes = 0;
+        for(int k = 0; k < count; k++){
+            board.makeMove(moves[k]);
+            nodes += count(board, depth - 1, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Finds the generated move of the side to move that matches a move in coordinate notation
+     * @param board position the move is played in
+     * @param text move such as "e2e4" or "e7e8q"
+     * @return packed move, or -1 if no move matches
+     */
+    static int findMove(Board board, String text){
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(board.isWhiteToMove(), moves);
+        for(int k = 0; k < count; k++){
+            if(Move.toString(moves[k]).equals(text)){
+                return moves[k];
+            }
+        }
+        return -1;
+    }
+}
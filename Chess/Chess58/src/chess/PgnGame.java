@@ -0,0 +1,373 @@
+/**
+ * PgnGame is one game read from a PGN file: its tag pairs and its movetext. replay plays the moves on a Board one by one,
+ * turning every move in Standard Algebraic Notation (SAN, e.g: "Nbd7", "exd6", "O-O", "e8=Q+") into the matching generated move
+ * and making it through playMove, so the game is checked with the same rules (Board.isLegal and Piece.canMove) as a game typed in by hand.
+ * Comments, variations, move numbers, NAGs and the result are skipped.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.util.Map;
+
+public class PgnGame {
+
+    /**
+     * MoveListener is told about every move a replay makes, e.g: to collect statistics or pull positions out of a game.
+     * When games are replayed on several threads, it is called from all of them at once.
+     */
+    public interface MoveListener {
+
+        /**
+         * Called after a move was made
+         * @param game the game being replayed
+         * @param board the board, with the move already made
+         * @param move the packed move
+         * @param ply number of moves made so far, 1 for the first move
+         */
+        void move(PgnGame game, Board board, int move, int ply);
+    }
+
+    /**
+     * number is the position of the game in its file, 1 for the first game
+     * tags holds the tag pairs, e.g: "White" to the name of the white player
+     * moveText is the text after the tags, exactly as it was read
+     */
+    private final long number;
+    private final Map<String, String> tags;
+    private final String moveText;
+
+    /**
+     * Constructor that creates a game from what was read of it
+     * @param number position of the game in its file, 1 for the first game
+     * @param tags tag pairs of the game
+     * @param moveText movetext of the game
+     */
+    public PgnGame(long number, Map<String, String> tags, String moveText){
+        this.number = number;
+        this.tags = tags;
+        this.moveText = moveText;
+    }
+
+    /**
+     * Gives the position of the game in its file
+     * @return game number, 1 for the first game
+     */
+    public long getNumber(){
+        return number;
+    }
+
+    /**
+     * Gives the value of a tag
+     * @param name name of the tag, e.g: "Result"
+     * @return value of the tag, or null if the game does not have it
+     */
+    public String getTag(String name){
+        return tags.get(name);
+    }
+
+    /**
+     * Gives every tag pair of the game
+     * @return tag names mapped to their values, in the order they were read
+     */
+    public Map<String, String> getTags(){
+        return tags;
+    }
+
+    /**
+     * Gives the movetext of the game
+     * @return the text after the tags
+     */
+    public String getMoveText(){
+        return moveText;
+    }
+
+    /**
+     * Plays the game on a board, starting from the starting position or from the position of its "FEN" tag
+     * @param board board to play on; whatever was on it is replaced
+     * @param listener told about every move, or null
+     * @param buffer buffer the candidate moves are listed into, at least Move.MAX_MOVES long; a caller replaying many games keeps reusing the same one
+     * @return number of moves made, or -1 if the starting position or one of the moves is not valid; the listener has then seen the moves before it
+     */
+    public int replay(Board board, MoveListener listener, int[] buffer){
+        String fen = tags.get("FEN");
+        if(fen == null){
+            board.initializeBoardPieces();
+        }
+        else{
+            try{
+                board.loadFen(fen);
+            }
+            catch(IllegalArgumentException e){
+                return -1;
+            }
+        }
+        String text = moveText;
+        int length = text.length();
+        int ply = 0;
+        int k = 0;
+        while(k < length){
+            char c = text.charAt(k);
+            if(c <= ' ' || c == '.' || c == ')'){
+                k++;
+            }
+            else if(c == '{'){
+                k = skipPast(text, k, '}');
+            }
+            else if(c == ';' || c == '%'){
+                k = skipPast(text, k, '\n');
+            }
+            else if(c == '('){
+                k = skipVariation(text, k);
+            }
+            else if(c == '*'){
+                break;
+            }
+            else{
+                int end = k;
+                while(end < length && !isTokenEnd(text.charAt(end))){
+                    end++;
+                }
+                //NAGs, and annotation marks some programs write apart from their move
+                if(c == '$' || c == '!' || c == '?'){
+                    k = end;
+                    continue;
+                }
+                //a token starting with a digit is a move number, or the result unless it is castling written with zeros
+                if(c >= '0' && c <= '9' && !isZeroCastling(text, k, end)){
+                    int digits = k;
+                    while(digits < end && text.charAt(digits) >= '0' && text.charAt(digits) <= '9'){
+                        digits++;
+                    }
+                    if(digits < end && text.charAt(digits) == '.'){
+                        //"12." or "12...", possibly followed right away by the move, e.g: "12.e4"
+                        k = digits;
+                        continue;
+                    }
+                    break;
+                }
+                int move = findSan(board, text, k, end, buffer);
+                if(move < 0 || !board.playMove(move)){
+                    return -1;
+                }
+                ply++;
+                if(listener != null){
+                    listener.move(this, board, move, ply);
+                }
+                k = end;
+            }
+        }
+        return ply;
+    }
+
+    /**
+     * Finds the move of the side to move that matches a move in Standard Algebraic Notation, e.g: "Nf3", "Raxd1", "exd6", "O-O-O" or "b8=Q#".
+     * Check and annotation marks at the end are ignored. When more than one piece could make the move, the one that does not leave its king in check is picked.
+     * @param board position the move is played in
+     * @param text text holding the move
+     * @param start index of the first character of the move
+     * @param end index just after the last character of the move
+     * @param buffer buffer the candidate moves are listed into, at least Move.MAX_MOVES long, reused from move to move
+     * @return packed move, or -1 if no move or more than one move matches
+     */
+    public static int findSan(Board board, CharSequence text, int start, int end, int[] buffer){
+        while(end > start && "+#!?".indexOf(text.charAt(end - 1)) >= 0){
+            end--;
+        }
+        if(end - start < 2){
+            return -1;
+        }
+        boolean white = board.isWhiteToMove();
+        int color = white ? Piece.WHITE : Piece.BLACK;
+
+        //castling is a king move with the castling flag
+        char first = text.charAt(start);
+        if(first == 'O' || first == '0'){
+            int flag = end - start == 3 ? Move.KING_CASTLE : end - start == 5 ? Move.QUEEN_CASTLE : -1;
+            long king = board.getPieceBitboard(color, Piece.KING);
+            if(flag < 0 || king == 0){
+                return -1;
+            }
+            int from = Long.numberOfTrailingZeros(king);
+            int count = board.getBoard()[Bitboard.row(from)][Bitboard.col(from)].listMoves(Bitboard.row(from), Bitboard.col(from), board, buffer, 0);
+            for(int k = 0; k < count; k++){
+                if(Move.flags(buffer[k]) == flag){
+                    return buffer[k];
+                }
+            }
+            return -1;
+        }
+
+        int type = Piece.PAWN;
+        int k = start;
+        int letter = "NBRQK".indexOf(first);
+        if(letter >= 0){
+            type = Piece.KNIGHT + letter;
+            k++;
+        }
+        int promotion = -1;
+        if(type == Piece.PAWN){
+            int last = "NBRQ".indexOf(text.charAt(end - 1));
+            if(last >= 0){
+                promotion = Piece.KNIGHT + last;
+                end--;
+                if(end > k && text.charAt(end - 1) == '='){
+                    end--;
+                }
+            }
+        }
+        if(end - k < 2){
+            return -1;
+        }
+        int toCol = text.charAt(end - 2) - 'a';
+        int toRow = '8' - text.charAt(end - 1);
+        if(toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7){
+            return -1;
+        }
+        int to = Bitboard.square(toRow, toCol);
+
+        //whatever is left between the piece letter and the destination is the starting file and/or rank and the capture mark
+        int fromCol = -1;
+        int fromRow = -1;
+        for(int j = k; j < end - 2; j++){
+            char c = text.charAt(j);
+            if(c >= 'a' && c <= 'h'){
+                fromCol = c - 'a';
+            }
+            else if(c >= '1' && c <= '8'){
+                fromRow = '8' - c;
+            }
+            else if(c != 'x' && c != ':' && c != '-'){
+                return -1;
+            }
+        }
+
+        //only pieces that can reach the destination are asked for their moves; attacks are symmetric, so look from the destination back.
+        //a pawn that does not capture stays on its column
+        long occupied = board.getOccupied();
+        long reach;
+        switch(type){
+            case Piece.PAWN:
+                reach = Bitboard.FILE_A << (fromCol >= 0 ? fromCol : toCol);
+                break;
+            case Piece.KNIGHT:
+                reach = Bitboard.knightAttacksFrom(to);
+                break;
+            case Piece.BISHOP:
+                reach = Bitboard.bishopAttacks(to, occupied);
+                break;
+            case Piece.ROOK:
+                reach = Bitboard.rookAttacks(to, occupied);
+                break;
+            case Piece.QUEEN:
+                reach = Bitboard.queenAttacks(to, occupied);
+                break;
+            default:
+                reach = Bitboard.kingAttacksFrom(to);
+                break;
+        }
+        long movers = board.getPieceBitboard(color, type) & reach;
+        if(fromCol >= 0){
+            movers &= Bitboard.FILE_A << fromCol;
+        }
+        if(fromRow >= 0){
+            movers &= 0xFFL << (fromRow * 8);
+        }
+        //SAN only names the starting tile when it has to, so when a second piece could make the move legality decides, e.g: one of them is pinned
+        boolean checkLegality = Long.bitCount(movers) > 1;
+        Piece[][] pieces = board.getBoard();
+        int found = -1;
+        int candidates = 0;
+        for(; movers != 0; movers &= movers - 1){
+            int from = Long.numberOfTrailingZeros(movers);
+            int row = Bitboard.row(from);
+            int col = Bitboard.col(from);
+            int count = pieces[row][col].listMoves(row, col, board, buffer, 0);
+            for(int j = 0; j < count; j++){
+                int move = buffer[j];
+                if(Move.to(move) != to || Move.isPromotion(move) != (promotion >= 0)
+                        || (promotion >= 0 && Move.promotionType(move) != promotion)){
+                    continue;
+                }
+                if(checkLegality && !isLegal(board, move, white)){
+                    continue;
+                }
+                found = move;
+                candidates++;
+            }
+        }
+        return candidates == 1 ? found : -1;
+    }
+
+    /**
+     * Tells if a generated move leaves the mover's king out of check
+     * @param board position the move is played in
+     * @param move packed move
+     * @param white true if white makes the move
+     * @return true if the move is legal
+     */
+    private static boolean isLegal(Board board, int move, boolean white){
+        board.makeMove(move);
+        boolean legal = !Board.inCheck(0, 0, board, white);
+        board.unmakeMove();
+        return legal;
+    }
+
+    /**
+     * Tells if a token starting with '0' is castling ("0-0" or "0-0-0") rather than a result such as "0-1"
+     * @param text text holding the token
+     * @param start index of the first character of the token
+     * @param end index just after the last character of the token
+     * @return true if the token is castling
+     */
+    private static boolean isZeroCastling(CharSequence text, int start, int end){
+        return end - start >= 3 && text.charAt(start) == '0' && text.charAt(start + 1) == '-' && text.charAt(start + 2) == '0';
+    }
+
+    /**
+     * Tells if a character ends a move token
+     * @param c character to check
+     * @return true for white space and the characters that start a comment or variation
+     */
+    private static boolean isTokenEnd(char c){
+        return c <= ' ' || c == '{' || c == '(' || c == ')' || c == ';';
+    }
+
+    /**
+     * Skips to just past the next occurrence of a character
+     * @param text text to look in
+     * @param k index to start at
+     * @param close character to look for
+     * @return index just after it, or the length of the text if it is not there
+     */
+    private static int skipPast(String text, int k, char close){
+        int found = text.indexOf(close, k + 1);
+        return found < 0 ? text.length() : found + 1;
+    }
+
+    /**
+     * Skips a variation in parentheses, including variations and comments inside it
+     * @param text text to look in
+     * @param k index of the opening parenthesis
+     * @return index just after the matching closing parenthesis, or the length of the text if there is none
+     */
+    private static int skipVariation(String text, int k){
+        int depth = 0;
+        while(k < text.length()){
+            char c = text.charAt(k);
+            if(c == '{'){
+                k = skipPast(text, k, '}');
+                continue;
+            }
+            if(c == '('){
+                depth++;
+            }
+            else if(c == ')' && --depth == 0){
+                return k + 1;
+            }
+            k++;
+        }
+        return k;
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * PgnReader reads games from a PGN file one at a time, so a file of any size is read with the memory of a single game.
+ * replayAll plays every game on a pool of threads, each with its own Board. The games waiting for a thread are kept in a short queue,
+ * and when it is full the reading thread replays a game itself, so reading never gets far ahead of the replays.
+ * Run it with "pgn file [threads]" to replay a whole file and print how many games per second were replayed.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PgnReader implements Closeable {
+
+    /**
+     * QUEUED_GAMES_PER_THREAD is how many games per thread may wait to be replayed before the reading thread helps out
+     */
+    private static final int QUEUED_GAMES_PER_THREAD = 64;
+
+    /**
+     * in is the file being read
+     * pendingLine is a tag line that was read while looking for the end of the previous game, or null
+     * moveText is reused to collect the movetext of each game
+     * games is the number of games read so far
+     * replayed and plies count the games whose every move was played and the moves played, over all threads
+     */
+    private final BufferedReader in;
+    private String pendingLine;
+    private final StringBuilder moveText = new StringBuilder(1024);
+    private long games;
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder plies = new LongAdder();
+
+    /**
+     * Constructor that creates a reader over some PGN text
+     * @param in the PGN text
+     */
+    public PgnReader(Reader in){
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+    }
+
+    /**
+     * Reads a PGN file and its thread count from the command line, replays every game and prints how fast it went
+     * @param args the file name, optionally followed by the number of threads
+     * @throws IOException if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1){
+            System.out.println("Usage: pgn <file> [threads]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try(PgnReader reader = new PgnReader(new FileReader(args[0], StandardCharsets.UTF_8))){
+            long start = System.nanoTime();
+            reader.replayAll(threads, null);
+            long elapsed = Math.max(System.nanoTime() - start, 1);
+            System.out.println("games " + reader.getGames() + " replayed " + reader.getReplayed() + " failed " + (reader.getGames() - reader.getReplayed())
+                    + " plies " + reader.getPlies() + " time " + (elapsed / 1000000) + " ms games/second " + (reader.getGames() * 1000000000L / elapsed));
+        }
+    }
+
+    /**
+     * Reads the next game
+     * @return the game, or null once the end of the text is reached
+     * @throws IOException if the text cannot be read
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        moveText.setLength(0);
+        String line;
+        while((line = pendingLine != null ? pendingLine : in.readLine()) != null){
+            pendingLine = null;
+            int k = 0;
+            while(k < line.length() && line.charAt(k) <= ' '){
+                k++;
+            }
+            if(k == line.length()){
+                continue;
+            }
+            char c = line.charAt(k);
+            if(c == '['){
+                //a tag after some movetext starts the next game
+                if(moveText.length() > 0){
+                    pendingLine = line;
+                    break;
+                }
+                readTag(line, k, tags);
+            }
+            else if(c != '%'){
+                moveText.append(line, k, line.length()).append('\n');
+            }
+        }
+        if(tags.isEmpty() && moveText.length() == 0){
+            return null;
+        }
+        return new PgnGame(++games, tags, moveText.toString());
+    }
+
+    /**
+     * Reads every game that is left and replays it
+     * @param threads number of threads to replay on, at least 1
+     * @param listener told about every move of every game, from all the threads at once, or null
+     * @return number of games whose every move was played
+     * @throws IOException if the text cannot be read
+     */
+    public long replayAll(int threads, PgnGame.MoveListener listener) throws IOException {
+        if(threads <= 1){
+            Board board = new Board();
+            int[] buffer = new int[Move.MAX_MOVES];
+            PgnGame game;
+            while((game = next()) != null){
+                replay(game, board, buffer, listener);
+            }
+            return getReplayed();
+        }
+        //every thread keeps its own board and move buffer for all the games it replays
+        ThreadLocal<Board> boards = ThreadLocal.withInitial(Board::new);
+        ThreadLocal<int[]> buffers = ThreadLocal.withInitial(() -> new int[Move.MAX_MOVES]);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_GAMES_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "pgn-replay");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try{
+            PgnGame game;
+            while((game = next()) != null){
+                PgnGame task = game;
+                pool.execute(() -> replay(task, boards.get(), buffers.get(), listener));
+            }
+        }
+        finally{
+            pool.shutdown();
+            try{
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+        return getReplayed();
+    }
+
+    /**
+     * Replays one game and counts it
+     * @param game the game
+     * @param board board to play it on
+     * @param buffer buffer the candidate moves are listed into
+     * @param listener told about every move, or null
+     */
+    private void replay(PgnGame game, Board board, int[] buffer, PgnGame.MoveListener listener){
+        int count = game.replay(board, listener, buffer);
+        if(count >= 0){
+            replayed.increment();
+            plies.add(count);
+        }
+    }
+
+    /**
+     * Reads a tag pair such as [White "Carlsen, Magnus"] into the tags of a game. Lines that are not a proper tag pair are ignored.
+     * @param line line holding the tag pair
+     * @param k index of the opening bracket
+     * @param tags map the tag is put in
+     */
+    private static void readTag(String line, int k, Map<String, String> tags){
+        int nameStart = k + 1;
+        int nameEnd = nameStart;
+        while(nameEnd < line.length() && line.charAt(nameEnd) > ' ' && line.charAt(nameEnd) != '"'){
+            nameEnd++;
+        }
+        int quote = line.indexOf('"', nameEnd);
+        if(nameEnd == nameStart || quote < 0){
+            return;
+        }
+        StringBuilder value = new StringBuilder();
+        for(int j = quote + 1; j < line.length(); j++){
+            char c = line.charAt(j);
+            if(c == '\\' && j + 1 < line.length()){
+                value.append(line.charAt(++j));
+            }
+            else if(c == '"'){
+                tags.put(line.substring(nameStart, nameEnd), value.toString());
+                return;
+            }
+            else{
+                value.append(c);
+            }
+        }
+    }
+
+    /**
+     * Gives the number of games read so far
+     * @return game count
+     */
+    public long getGames(){
+        return games;
+    }
+
+    /**
+     * Gives the number of games whose every move was played. Only exact once replayAll has returned.
+     * @return game count
+     */
+    public long getReplayed(){
+        return replayed.sum();
+    }
+
+    /**
+     * Gives the number of moves played in the games that were replayed. Only exact once replayAll has returned.
+     * @return move count
+     */
+    public long getPlies(){
+        return plies.sum();
+    }
+
+    /**
+     * Closes the text being read
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
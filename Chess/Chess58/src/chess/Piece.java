@@ -2,37 +2,64 @@
  * Piece is the base class for all chess pieces. It contains 
  * the skeleton, meaning it has all the shared attributes of every chess piece like the 
  * name and color, and also the abstract canMove method and isPathClear method.
+ * A piece is nothing but its color and type packed into one byte, so there is exactly one instance of every kind of piece (see of) and pieces are
+ * compared with ==. Whether a piece has moved is kept by the Board, so a board is copied by copying references and a piece never changes.
  * @author Waleed Rizwan
  * @author Mohammad (Massab) Sohail
  */
 
 package chess;
 
-import java.util.ArrayList;
-
 public abstract class Piece {
-    private String name, color;
-    public boolean enpassant;
-    public boolean hasNotMoved;
 
+    /**
+     * PAWN through KING are the piece type indexes used by the bitboards in Board.
+     * WHITE and BLACK are the color indexes used by the bitboards in Board.
+     */
+    public static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3, QUEEN = 4, KING = 5;
+    public static final int WHITE = 0, BLACK = 1;
+
+    /**
+     * COLOR_BIT is the bit of a piece code that is set for black pieces, and TYPE_MASK keeps the type index below it
+     * TYPE_NAMES holds the abbreviated name of every type, e.g: "N" for a knight
+     * PIECES holds the one instance of every kind of piece, indexed by getIndex(). The constructors are only called from here.
+     */
+    public static final int COLOR_BIT = 8, TYPE_MASK = 7;
+    private static final String[] TYPE_NAMES = { "p", "N", "B", "R", "Q", "K" };
+    private static final Piece[] PIECES = {
+            new Pawn(WHITE), new Knight(WHITE), new Bishop(WHITE), new Rook(WHITE), new Queen(WHITE), new King(WHITE),
+            new Pawn(BLACK), new Knight(BLACK), new Bishop(BLACK), new Rook(BLACK), new Queen(BLACK), new King(BLACK)
+    };
+
+    /**
+     * code is the color bit and the type index of the piece, e.g: COLOR_BIT | KNIGHT for a black knight
+     */
+    private final byte code;
+
+
+    /**
+     * constructor that packs the color and type of a piece into its code
+     * @param color WHITE or BLACK
+     * @param type the type index of the piece, PAWN through KING
+     */
+    Piece(int color, int type){
+        this.code = (byte) (color * COLOR_BIT | type);
+    }
 
     /**
-     * constructor that assigns color and name to each piece
-     * enpassant: true if this piece just moved up two columns
-     * hasNotMoved: No piece initialized has moved by default, so set to true
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece e.g: "P" for Pawn, "Q" for Queen, etc..
+     * Gives the one instance of a kind of piece, e.g: the piece a pawn is promoted to or a piece read from a FEN string
+     * @param type type index of the piece, PAWN through KING
+     * @param white true for a white piece
+     * @return the shared piece
      */
-    public Piece(String color, String name){
-        this.color = color;
-        this.name = name;
-        this.enpassant = false;
-        this.hasNotMoved = true;
+    public static Piece of(int type, boolean white){
+        return PIECES[(white ? WHITE : BLACK) * 6 + type];
     }
 
 
     /**
      *Checks to see if the piece can move to a given tile with the passed in coordinates.
+     * It only reads the board and never changes it or the piece, so it can be asked about any move at any time; Board.makeMove makes the move.
      * @param sRow Row of starting Tile in the board array
      * @param sCol Column of starting Tile in the board array
      * @param dRow Row of destination Tile in the board array
@@ -57,22 +84,98 @@ public abstract class Piece {
     public abstract boolean isPathClear(int sRow, int sCol, int dRow, int dCol,  Board board);
 
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the viable moves that a piece can make into a move buffer as packed ints (see Move). Nothing is allocated, so the same buffer can be reused for every call.
+     * Moves that would leave the player's own king in check are still listed; updateBoard rejects those.
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    public abstract int listMoves(int sRow, int sCol, Board board, int[] moves, int count);
+
+    /**
+     * Writes only the captures a piece can make into a move buffer, the same way listMoves does. Quiet moves are never generated,
+     * so a search that only looks at captures does not pay for listing moves it would throw away.
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    public abstract int listCaptures(int sRow, int sCol, Board board, int[] moves, int count);
+
+    /**
+     * Writes the moves that listCaptures leaves out into a move buffer, so that listCaptures and listQuiets together list exactly what listMoves does.
+     * A search that gets a cutoff from a capture never has to generate these.
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    public abstract int listQuiets(int sRow, int sCol, Board board, int[] moves, int count);
+
+    /**
+     * Writes one move into a move buffer for every tile in a bitboard of destinations, marking the ones that land on an enemy piece as captures
+     * @param from starting square index
+     * @param targets bitboard of destination tiles
+     * @param enemies bitboard of the enemy pieces
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    protected static int addMoves(int from, long targets, long enemies, int[] moves, int count){
+        while(targets != 0){
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = ((enemies >>> to) & 1) != 0 ? Move.CAPTURE : Move.QUIET;
+            moves[count++] = Move.encode(from, to, flags);
+        }
+        return count;
+    }
+
+    /**
+     * Gives the code of the piece: its type index, with COLOR_BIT set for a black piece
+     * @return the code of the piece
      */
-    public abstract ArrayList<ArrayList<Integer>>  listMoves(int sRow, int sCol, Board board);
+    public final byte getCode() {
+        return code;
+    }
 
+    /**
+     * Gives the type index of the piece, one of PAWN, KNIGHT, BISHOP, ROOK, QUEEN or KING
+     * @return the type index of the piece
+     */
+    public final int getType() {
+        return code & TYPE_MASK;
+    }
 
+    /**
+     * Tells if this piece belongs to the white player
+     * @return true if the piece is white, false if it is black
+     */
+    public final boolean isWhite() {
+        return (code & COLOR_BIT) == 0;
+    }
+
+    /**
+     * Gives the index of this piece in the bitboard arrays of Board. White pieces come first, then black pieces, each in type order.
+     * @return index from 0 to 11
+     */
+    public final int getIndex() {
+        return (code >> 3) * 6 + (code & TYPE_MASK);
+    }
 
     /**
      * Gives the user the color of the piece
-     * @return the color of the piece in the form of a String
+     * @return the color of the piece in the form of a String, "w" or "b"
      */
     public String getColor() {
-        return color;
+        return isWhite() ? "w" : "b";
     }
 
 
@@ -81,7 +184,7 @@ public abstract class Piece {
      * @return the name of the piece in the form of a String
      */
     public String getName() {
-        return name;
+        return TYPE_NAMES[getType()];
     }
 
     /**
@@ -90,6 +193,6 @@ public abstract class Piece {
      */
     @Override
     public String toString() {
-        return color + name;
+        return getColor() + getName();
     }
 }
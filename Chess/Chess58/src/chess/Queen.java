@@ -6,17 +6,14 @@
 
 package chess;
 
-import java.util.ArrayList;
-
 public class Queen extends Piece {
 
     /**
-     * constructor calls the superclass Piece constructor to assign color and name to each piece
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece: "Q" for Queen
+     * constructor calls the superclass Piece constructor to assign color and type to the piece. It is only called once per color, for the shared pieces of Piece.of
+     * @param color Piece.WHITE or Piece.BLACK
      */
-    public Queen(String color, String name){
-        super(color,name);
+    Queen(int color){
+        super(color, QUEEN);
     }
 
 
@@ -33,27 +30,18 @@ public class Queen extends Piece {
      */
     @Override
     public boolean canMove(int sRow, int sCol, int dRow, int dCol,  Board board, Piece prevMove, int [] startingCoordOfPrevMove) {
-        Piece[][] gameBoard = board.getBoard();
-        Piece sPiece = gameBoard[sRow][sCol];
-        String color = sPiece.getColor();
-        Rook rookPiece = new Rook(color, "R");
-        Bishop bishopPiece = new Bishop(color, "B");
         //queen can go horizontal, vertical, diagonal
-        //queen is basically combination of rook + bishop
+        //queen is basically combination of rook + bishop, so the move has to be in line and nothing can stand in between
 
         int deltaX =Math.abs(sRow-dRow);
         int deltaY =Math.abs(sCol-dCol);
-        if(deltaX == deltaY && bishopPiece.isPathClear(sRow, sCol, dRow, dCol, board)){ //diagonal
-            return true;
+        boolean diagonal = deltaX == deltaY && deltaX != 0;
+        boolean straight = (sRow == dRow) != (sCol == dCol);
+        if(!diagonal && !straight){
+            return false;
         }
-        else if(sRow == dRow && sCol != dCol && rookPiece.isPathClear(sRow, sCol, dRow, dCol, board)){ //horizontal
-            return true;
-        }
-        else if(sCol == dCol && sRow != dRow && rookPiece.isPathClear(sRow, sCol, dRow, dCol, board)){ //vertical
-            return true;
-        }
-
-        return false;
+        return isPathClear(sRow, sCol, dRow, dCol, board)
+                && (Bitboard.between(Bitboard.square(sRow, sCol), Bitboard.square(dRow, dCol)) & board.getOccupied()) == 0;
     }
 
 
@@ -74,7 +62,7 @@ public class Queen extends Piece {
 
         //if trying to attk same color piece
         if(sPiece != null && dPiece != null){
-            if(sPiece.getColor().equals(dPiece.getColor())){
+            if(sPiece.isWhite() == dPiece.isWhite()){
                 return false;
             }
         }
@@ -82,26 +70,51 @@ public class Queen extends Piece {
     }//end isPathClear
 
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the viable moves that a piece can make into a move buffer as packed ints
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
      */
-
-
     @Override
-    public ArrayList<ArrayList<Integer>> listMoves(int sRow, int sCol, Board board) {
-        Bishop bishop = new Bishop(this.getColor(), this.getName());
-        Rook rook = new Rook(this.getColor(), this.getName());
-        ArrayList<ArrayList<Integer>> bishopMoves = bishop.listMoves(sRow, sCol, board);
-        ArrayList<ArrayList<Integer>> rookMoves = rook.listMoves(sRow, sCol, board);
-        ArrayList<ArrayList<Integer>> queenMoves = new ArrayList<>();
-        queenMoves.addAll(bishopMoves);
-        queenMoves.addAll(rookMoves);
-        return queenMoves;
+    public int listMoves(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        int own = isWhite() ? WHITE : BLACK;
+        long targets = Bitboard.queenAttacks(from, board.getOccupied()) & ~board.getColorBitboard(own);
+        return addMoves(from, targets, board.getColorBitboard(own ^ 1), moves, count);
     }
 
+    /**
+     * Writes the captures the piece can make into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listCaptures(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        long enemies = board.getColorBitboard(isWhite() ? BLACK : WHITE);
+        return addMoves(from, Bitboard.queenAttacks(from, board.getOccupied()) & enemies, enemies, moves, count);
+    }
 
+    /**
+     * Writes the moves of the piece that do not capture into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listQuiets(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        return addMoves(from, Bitboard.queenAttacks(from, board.getOccupied()) & ~board.getOccupied(), 0L, moves, count);
+    }
 
 }
@@ -6,20 +6,15 @@
 
 package chess;
 
-import java.util.ArrayList;
-
 public class Rook extends Piece {
 
 
     /**
-     * constructor calls the superclass Piece constructor to assign color and name to each piece
-     * Then sets hasNotMovedYet to true because the piece every piece has not moved during initialization by default.
-     * @param color The piece can have color "w" for white, or "b" for black
-     * @param name The abbreviated name of the piece: "R" for Rook
+     * constructor calls the superclass Piece constructor to assign color and type to the piece. It is only called once per color, for the shared pieces of Piece.of
+     * @param color Piece.WHITE or Piece.BLACK
      */
-    public Rook(String color, String name){
-        super(color,name);
-        this.hasNotMoved = true;
+    Rook(int color){
+        super(color, ROOK);
     }
 
 
@@ -42,22 +37,8 @@ public class Rook extends Piece {
 
 
         //same row moving to a diff col.. e.g: a1 f1 -- horizontally
-        if(sRow == dRow && sCol != dCol){
-            if(isPathClear(sRow, sCol, dRow, dCol, board)){
-                hasNotMoved = false;
-            }
-            return true;
-        }
-
         //same col moving to a diff row.. e.g: a1 a4 --vertically
-        if(sCol == dCol && sRow != dRow){
-            if(isPathClear(sRow, sCol, dRow, dCol, board)){
-                hasNotMoved = false;
-            }
-            return true;
-        }
-
-        return false;
+        return (sRow == dRow) != (sCol == dCol);
     }
 
 
@@ -78,117 +59,61 @@ public class Rook extends Piece {
 
         //if trying to attk same color piece
         if(sPiece != null && dPiece != null){
-            if(sPiece.getColor().equals(dPiece.getColor())){
+            if(sPiece.isWhite() == dPiece.isWhite()){
                 return false;
             }
         }
-        //if rook is moving up check column for pieces (vertically)
-
-        //rook is moving up the board
-        if(sRow > dRow){
-            for(int tempRow = dRow + 1; tempRow < sRow; tempRow++){
-                Piece tempPiece = gameBoard[tempRow][sCol];
-                if(tempPiece!= null){
-                    return false;
-                }
-            }
-
-        }
-        //rook is moving down the board
-        else if(sRow < dRow){
-            for(int tempRow = dRow - 1; tempRow > sRow; tempRow--){
-                Piece tempPiece = gameBoard[tempRow][sCol];
-                if(tempPiece!= null){
-                    return false;
-                }
-            }
-        }
-
-
-        //if rook is moving is across the row (horizontally)
-
-        //moving to right side of board
-        else if(sCol < dCol){
-            for(int tempCol = dCol - 1; tempCol > sCol; tempCol--){
-                Piece tempPiece = gameBoard[sRow][tempCol];
-                if(tempPiece!= null){
-                    return false;
-                }
-            }
-        }
-
-        //moving to left side of baord
-        else if(sCol > dCol){
-            for(int tempCol = dCol + 1; tempCol < sCol; tempCol++){
-                Piece tempPiece = gameBoard[sRow][tempCol];
-                if(tempPiece!= null){
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        //every tile between the start and the destination has to be empty, looked up in the precomputed between table
+        return (Bitboard.between(Bitboard.square(sRow, sCol), Bitboard.square(dRow, dCol)) & board.getOccupied()) == 0;
     }
 
 
     /**
-     * Gives a list of viable moves that a piece can make
+     * Writes the viable moves that a piece can make into a move buffer as packed ints
      * @param sRow starting row of piece
      * @param sCol starting col of piece
      * @param board instance of chessboard
-     * @return Arraylist of all viable moves
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
      */
-
     @Override
-    public ArrayList<ArrayList<Integer>> listMoves(int sRow, int sCol, Board board) {
-        ArrayList<ArrayList<Integer>> moves = new ArrayList<>();
-        Piece[][] pieces = Board.getBoard();
-        // Up check
-       boolean rookHasNotMovedVal = board.getBoard()[sRow][sCol].hasNotMoved;
-
-        for (int pos = sRow; pos >= 0; pos--) {
-
-            if (canMove(sRow, sCol, pos, sCol, board, null, null)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(pos);
-                move.add(sCol);
-                moves.add(move);
-            }
-        }
-        // Down check
-        for (int pos = sRow; pos <= pieces[0].length; pos++) {
-            if (canMove(sRow, sCol, pos, sCol, board, null, null)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(pos);
-                move.add(sCol);
-                moves.add(move);
-
-            }
-        }
-        // Left check
-        for (int pos = sCol; pos >= 0; pos--) {
-            if (canMove(sRow, sCol, sRow, pos, board, null, null)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(sRow);
-                move.add(pos);
-                moves.add(move);
-
-            }
-        }
-        // Right check
-        for (int pos = sCol; pos <= pieces[sRow].length; pos++) {
-            if (canMove(sRow, sCol, sRow, pos, board, null, null)) {
-                ArrayList<Integer> move = new ArrayList<>();
-                move.add(sRow);
-                move.add(pos);
-                moves.add(move);
-            }
-        }
-        board.getBoard()[sRow][sCol].hasNotMoved = rookHasNotMovedVal;
-
-        return moves;
+    public int listMoves(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        int own = isWhite() ? WHITE : BLACK;
+        long targets = Bitboard.rookAttacks(from, board.getOccupied()) & ~board.getColorBitboard(own);
+        return addMoves(from, targets, board.getColorBitboard(own ^ 1), moves, count);
     }
 
+    /**
+     * Writes the captures the piece can make into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listCaptures(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        long enemies = board.getColorBitboard(isWhite() ? BLACK : WHITE);
+        return addMoves(from, Bitboard.rookAttacks(from, board.getOccupied()) & enemies, enemies, moves, count);
+    }
 
+    /**
+     * Writes the moves of the piece that do not capture into a move buffer as packed ints
+     * @param sRow starting row of piece
+     * @param sCol starting col of piece
+     * @param board instance of chessboard
+     * @param moves buffer the moves are written into
+     * @param count index in the buffer where the first move is written
+     * @return index in the buffer after the last move that was written
+     */
+    @Override
+    public int listQuiets(int sRow, int sCol, Board board, int[] moves, int count) {
+        int from = Bitboard.square(sRow, sCol);
+        return addMoves(from, Bitboard.rookAttacks(from, board.getOccupied()) & ~board.getOccupied(), 0L, moves, count);
+    }
 
 }
\ No newline at end of file
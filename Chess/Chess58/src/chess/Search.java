@@ -0,0 +1,501 @@
+/**
+ * Search is the computer player. It looks ahead with a negamax alpha-beta search over makeMove/unmakeMove and deepens one ply at a time,
+ * so whenever the depth or time budget runs out it still has the best move of the last depth it finished.
+ * Run it with "search depth [moves...]", where the optional moves (e.g: "e2e4 e7e5") are played from the starting position first.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.io.PrintStream;
+
+public class Search {
+
+    /**
+     * MATE is the score of a checkmate, lowered by one for every ply it takes so the search prefers the quickest mate
+     * INFINITY is larger than any score and is the starting window of every search
+     * MAX_PLY is the deepest line the search will follow
+     * DEFAULT_HASH_MB is the size of the transposition table a search creates when it is not given one
+     */
+    public static final int MATE = 100000;
+    public static final int INFINITY = 1000000;
+    public static final int MAX_PLY = 64;
+    private static final int TIME_CHECK_INTERVAL = 1023;
+    public static final int DEFAULT_HASH_MB = 16;
+
+    /**
+     * rootMoves holds the legal moves of the root position, and pickers holds one move picker per ply so the search does not allocate move lists
+     * killers holds, per ply, the last two quiet moves that caused a cutoff there, most recent first
+     * history holds a score per piece index * 64 + destination square that grows every time such a quiet move causes a cutoff
+     * table remembers positions that were already searched, and may be shared with other searches
+     * info is where a line is printed after every finished depth, or null to stay quiet
+     * nodes is the number of positions visited by the current search
+     * deadline is the System.nanoTime() at which the search stops in the middle of a depth (the hard limit), or Long.MAX_VALUE for no time limit.
+     * It is only read every TIME_CHECK_INTERVAL + 1 nodes, since asking the clock on every node would cost more than it is worth.
+     * stopRequested is set by stop() from another thread and is checked together with the deadline
+     * stopped is set once the deadline passes or a stop is requested, after which every result of the unfinished depth is thrown away
+     * firstDepth is the depth iterative deepening starts at, so helper threads of a parallel search do not all follow the same schedule
+     * agesTable is false when the table is shared and whoever started the threads has already told it a new search began
+     * bestMove, bestScore and completedDepth are the result of the deepest finished iteration
+     */
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private final int[] rootMoves = new int[Move.MAX_MOVES];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[] history = new int[12 * 64];
+    private final TranspositionTable table;
+    private final PrintStream info;
+    private long nodes;
+    private long deadline;
+    private volatile boolean stopRequested;
+    private boolean stopped;
+    private int firstDepth = 1;
+    private boolean agesTable = true;
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+
+    /**
+     * Constructor that creates a search that does not print anything
+     */
+    public Search(){
+        this(null);
+    }
+
+    /**
+     * Constructor that creates a search which prints a UCI "info" line with depth, score, nodes, speed, time and best move after every finished depth
+     * @param info stream the lines are printed on, or null to stay quiet
+     */
+    public Search(PrintStream info){
+        this(new TranspositionTable(DEFAULT_HASH_MB), info);
+    }
+
+    /**
+     * Constructor that creates a search using a transposition table that may be shared with other searches
+     * @param table transposition table to read and write
+     * @param info stream a line is printed on after every finished depth, or null to stay quiet
+     */
+    public Search(TranspositionTable table, PrintStream info){
+        this.table = table;
+        this.info = info;
+        for(int ply = 0; ply < MAX_PLY; ply++){
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    /**
+     * Reads the depth and optional moves from the command line, then searches the position and prints every finished depth
+     * @param args depth followed by moves in coordinate notation
+     */
+    public static void main(String[] args){
+        if(args.length < 1){
+            System.out.println("Usage: search <depth> [moves...]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        Board board = new Board();
+        for(int i = 1; i < args.length; i++){
+            int move = Perft.findMove(board, args[i]);
+            if(move < 0 || !board.playMove(move)){
+                System.out.println("Illegal move: " + args[i]);
+                return;
+            }
+        }
+        TranspositionTable table = new TranspositionTable(DEFAULT_HASH_MB);
+        int move = new Search(table, System.out).search(board, depth, 0);
+        System.out.println("bestmove " + (move < 0 ? "(none)" : Move.toString(move)));
+        System.out.println("hash hits " + table.getHits() + " misses " + table.getMisses() + " collisions " + table.getCollisions());
+    }
+
+    /**
+     * Finds the best move for the side to move, deepening one ply at a time until the depth is reached or the time runs out
+     * @param board position to search, which is back in the same state when this returns
+     * @param maxDepth deepest iteration to run
+     * @param timeLimitMillis time budget in milliseconds, or 0 for no limit
+     * @return best packed move, or -1 if the side to move has no legal move
+     */
+    public int search(Board board, int maxDepth, long timeLimitMillis){
+        return search(board, maxDepth, TimeManager.fixed(timeLimitMillis));
+    }
+
+    /**
+     * Finds the best move for the side to move, deepening one ply at a time until the depth is reached or the time runs out.
+     * No new depth is started after the soft limit, and a depth in progress is cut off at the hard limit. While the best move keeps
+     * changing from one depth to the next the position is unclear, so the soft limit is pushed back towards the hard limit.
+     * @param board position to search, which is back in the same state when this returns
+     * @param maxDepth deepest iteration to run
+     * @param time soft and hard time limits for this move
+     * @return best packed move, or -1 if the side to move has no legal move
+     */
+    public int search(Board board, int maxDepth, TimeManager time){
+        long start = System.nanoTime();
+        deadline = time.getHardMillis() > 0 ? start + time.getHardMillis() * 1000000L : Long.MAX_VALUE;
+        long softDeadline = time.getSoftMillis() > 0 ? start + time.getSoftMillis() * 1000000L : Long.MAX_VALUE;
+        long extension = time.getSoftMillis() * 1000000L * TimeManager.INSTABILITY_PERCENT / 100;
+        nodes = 0;
+        stopRequested = false;
+        stopped = false;
+        bestMove = -1;
+        bestScore = 0;
+        completedDepth = 0;
+        if(agesTable){
+            table.newSearch();
+        }
+        //killers only make sense in the tree they were found in, but history is still a good guess for the next move of the game
+        for(int ply = 0; ply < MAX_PLY; ply++){
+            killers[ply][0] = 0;
+            killers[ply][1] = 0;
+        }
+        ageHistory();
+
+        int[] moves = rootMoves;
+        int count = board.generateLegalMoves(board.isWhiteToMove(), moves);
+        if(count == 0){
+            bestScore = Board.inCheck(0, 0, board, board.isWhiteToMove()) ? -MATE : 0;
+            return -1;
+        }
+        bestMove = moves[0];
+        //start from the move an earlier search of this position liked, if it is still legal here
+        int hashMove = TranspositionTable.move(table.probe(board.getZobristKey()));
+        for(int k = 0; k < count; k++){
+            if(moves[k] == hashMove){
+                bestMove = hashMove;
+            }
+        }
+        for(int depth = Math.min(firstDepth, maxDepth); depth <= Math.min(maxDepth, MAX_PLY - 1) && !stopped; depth++){
+            int previousBest = bestMove;
+            int score = searchRoot(board, moves, count, depth);
+            if(stopped){
+                break;
+            }
+            if(bestMove != previousBest && depth > 1){
+                softDeadline = Math.min(softDeadline + extension, deadline);
+            }
+            bestScore = score;
+            completedDepth = depth;
+            if(info != null){
+                long elapsed = Math.max(System.nanoTime() - start, 1);
+                info.println("info depth " + depth + " score " + formatScore(bestScore) + " nodes " + nodes + " nps " + (nodes * 1000000000L / elapsed)
+                        + " time " + (elapsed / 1000000) + " pv " + Move.toString(bestMove));
+                info.flush();
+            }
+            //a forced mate will not get any shorter by searching deeper
+            if(Math.abs(score) >= MATE - MAX_PLY){
+                break;
+            }
+            if(System.nanoTime() >= softDeadline){
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Asks a running search to stop as soon as it can. It still returns the best move of the deepest depth it finished.
+     * A request made before the search started is forgotten when it starts.
+     */
+    public void stop(){
+        stopRequested = true;
+    }
+
+    /**
+     * Sets the depth iterative deepening starts at
+     * @param depth first depth to search, at least 1
+     */
+    void setFirstDepth(int depth){
+        firstDepth = Math.max(depth, 1);
+    }
+
+    /**
+     * Sets whether every call to search tells the transposition table that a new search began
+     * @param agesTable false if the caller does it once for several searches sharing the table
+     */
+    void setAgesTable(boolean agesTable){
+        this.agesTable = agesTable;
+    }
+
+    /**
+     * Gives the score of the last search from the point of view of the side that was to move
+     * @return score in centipawns, or near MATE for a forced checkmate
+     */
+    public int getScore(){
+        return bestScore;
+    }
+
+    /**
+     * Gives the deepest iteration the last search finished
+     * @return depth in plies
+     */
+    public int getDepth(){
+        return completedDepth;
+    }
+
+    /**
+     * Gives the number of positions the last search visited
+     * @return node count
+     */
+    public long getNodes(){
+        return nodes;
+    }
+
+    /**
+     * Searches every root move one iteration deep. The best move of the previous iteration is searched first, so the window is narrow early on.
+     * @param board position to search
+     * @param moves legal root moves
+     * @param count number of root moves
+     * @param depth depth of this iteration
+     * @return score of the best move, or anything if the search was stopped
+     */
+    private int searchRoot(Board board, int[] moves, int count, int depth){
+        for(int k = 1; k < count; k++){
+            if(moves[k] == bestMove){
+                moves[k] = moves[0];
+                moves[0] = bestMove;
+                break;
+            }
+        }
+        int alpha = -INFINITY;
+        int best = moves[0];
+        for(int k = 0; k < count; k++){
+            board.makeMove(moves[k]);
+            int score = -negamax(board, depth - 1, -INFINITY, -alpha, 1);
+            board.unmakeMove();
+            if(stopped){
+                break;
+            }
+            if(score > alpha){
+                alpha = score;
+                best = moves[k];
+            }
+        }
+        //even an unfinished iteration searched the previous best move first, so anything that beat it is an improvement
+        if(alpha > -INFINITY){
+            bestMove = best;
+        }
+        if(!stopped){
+            table.store(board.getZobristKey(), best, toTable(alpha, 0), depth, TranspositionTable.EXACT);
+        }
+        return alpha;
+    }
+
+    /**
+     * Negamax alpha-beta search. Scores are always from the point of view of the side to move, and a line is cut off as soon as the opponent would avoid it.
+     * @param board position to search, which is back in the same state when this returns
+     * @param depth number of plies left
+     * @param alpha score the side to move is already guaranteed
+     * @param beta score the opponent is already guaranteed, negated
+     * @param ply number of plies from the root, used to pick the move buffer and to prefer quicker mates
+     * @return score of the position
+     */
+    private int negamax(Board board, int depth, int alpha, int beta, int ply){
+        if(depth <= 0){
+            return quiescence(board, alpha, beta, ply);
+        }
+        nodes++;
+        if((nodes & TIME_CHECK_INTERVAL) == 0 && (stopRequested || System.nanoTime() >= deadline)){
+            stopped = true;
+        }
+        if(stopped){
+            return 0;
+        }
+        if(ply >= MAX_PLY - 1){
+            return Evaluation.evaluate(board);
+        }
+
+        //a deep enough result for this position may already be known
+        long key = board.getZobristKey();
+        long entry = table.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        if(entry != 0 && TranspositionTable.depth(entry) >= depth){
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if(bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && score >= beta) || (bound == TranspositionTable.UPPER && score <= alpha)){
+                return score;
+            }
+        }
+
+        boolean white = board.isWhiteToMove();
+        //out of check only the king, a pinned piece or an en passant capture can be illegal, and the attack map spots that in one lookup once the move is made.
+        //in check most moves are illegal, so there they are weeded out beforehand with the check mask and pinned pieces
+        boolean inCheck = Board.inCheck(0, 0, board, white);
+        long checkMask = inCheck ? board.getCheckMask(white) : -1L;
+        long pinned = inCheck ? board.getPinned(white) : 0L;
+        MovePicker picker = pickers[ply];
+        picker.init(board, hashMove, killers[ply][0], killers[ply][1], history);
+        int originalAlpha = alpha;
+        int best = 0;
+        boolean hasLegalMove = false;
+        int move;
+        while((move = picker.next()) != 0){
+            if(inCheck && !board.leavesKingSafe(move, pinned, checkMask)){
+                continue;
+            }
+            board.makeMove(move);
+            if(!inCheck && Board.inCheck(0, 0, board, white)){
+                board.unmakeMove();
+                continue;
+            }
+            hasLegalMove = true;
+            int score = -negamax(board, depth - 1, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if(stopped){
+                return 0;
+            }
+            if(score > alpha){
+                alpha = score;
+                best = move;
+                if(alpha >= beta){
+                    if(!Move.isCapture(move) && !Move.isPromotion(move)){
+                        rememberQuiet(board, move, depth, ply);
+                    }
+                    table.store(key, best, toTable(alpha, ply), depth, TranspositionTable.LOWER);
+                    return alpha;
+                }
+            }
+        }
+        if(!hasLegalMove){
+            //checkmate or stalemate
+            return inCheck ? -MATE + ply : 0;
+        }
+        table.store(key, best, toTable(alpha, ply), depth, alpha > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER);
+        return alpha;
+    }
+
+    /**
+     * Quiescence search. At the end of the main search a position in the middle of a capture sequence would be badly misjudged, so captures keep
+     * being searched until the position is quiet. The side to move may also stop capturing ("stand pat"), so the static evaluation is a lower bound.
+     * A side in check cannot stand pat: all of its moves are searched instead, so a mate given on the last ply of the main search is still seen.
+     * @param board position to search, which is back in the same state when this returns
+     * @param alpha score the side to move is already guaranteed
+     * @param beta score the opponent is already guaranteed, negated
+     * @param ply number of plies from the root
+     * @return score of the position
+     */
+    private int quiescence(Board board, int alpha, int beta, int ply){
+        nodes++;
+        if((nodes & TIME_CHECK_INTERVAL) == 0 && (stopRequested || System.nanoTime() >= deadline)){
+            stopped = true;
+        }
+        if(stopped){
+            return 0;
+        }
+        boolean white = board.isWhiteToMove();
+        //a player in check may not stand pat, so every way out of check is searched and having none is mate
+        boolean inCheck = Board.inCheck(0, 0, board, white);
+        MovePicker picker = pickers[ply];
+        if(inCheck && ply < MAX_PLY - 1){
+            picker.init(board, 0, 0, 0, history);
+        }
+        else{
+            int standPat = Evaluation.evaluate(board);
+            if(standPat >= beta || ply >= MAX_PLY - 1){
+                return standPat;
+            }
+            if(standPat > alpha){
+                alpha = standPat;
+            }
+            picker.initCaptures(board);
+        }
+        boolean hasLegalMove = false;
+        int move;
+        while((move = picker.next()) != 0){
+            board.makeMove(move);
+            if(Board.inCheck(0, 0, board, white)){
+                board.unmakeMove();
+                continue;
+            }
+            hasLegalMove = true;
+            int score = -quiescence(board, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if(stopped){
+                return 0;
+            }
+            if(score > alpha){
+                alpha = score;
+                if(alpha >= beta){
+                    return alpha;
+                }
+            }
+        }
+        if(inCheck && !hasLegalMove){
+            return -MATE + ply;
+        }
+        return alpha;
+    }
+
+    /**
+     * Writes a score the way UCI expects it: "cp" and centipawns, or "mate" and the number of moves to the mate, negative if the side to move is the one mated
+     * @param score score from the search
+     * @return score for an info line, e.g: "cp 35" or "mate 3"
+     */
+    public static String formatScore(int score){
+        if(Math.abs(score) >= MATE - MAX_PLY){
+            int moves = (MATE - Math.abs(score) + 1) / 2;
+            return "mate " + (score > 0 ? moves : -moves);
+        }
+        return "cp " + score;
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff, as a killer move of its ply and in the history table
+     * @param board position the move was made in
+     * @param move packed quiet move
+     * @param depth depth the position was searched to; deeper cutoffs count for more
+     * @param ply number of plies from the root
+     */
+    private void rememberQuiet(Board board, int move, int depth, int ply){
+        if(killers[ply][0] != move){
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int from = Move.from(move);
+        int index = (board.getBoard()[Bitboard.row(from)][Bitboard.col(from)].getIndex() << 6) | Move.to(move);
+        history[index] += depth * depth;
+        if(history[index] > HISTORY_LIMIT){
+            ageHistory();
+        }
+    }
+
+    /**
+     * Halves every history score, so moves that were good a while ago slowly give way to the ones that are good now
+     */
+    private void ageHistory(){
+        for(int k = 0; k < history.length; k++){
+            history[k] >>= 1;
+        }
+    }
+
+    /**
+     * Converts a score for storing in the transposition table. Mate scores count plies from the root, but the table needs them counted from
+     * the stored position, since the same position can be reached at a different ply.
+     * @param score score as the search sees it
+     * @param ply number of plies from the root
+     * @return score to store
+     */
+    private static int toTable(int score, int ply){
+        if(score >= MATE - MAX_PLY){
+            return score + ply;
+        }
+        if(score <= -MATE + MAX_PLY){
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score read from the transposition table back into a score counted from the root
+     * @param score stored score
+     * @param ply number of plies from the root
+     * @return score as the search sees it
+     */
+    private static int fromTable(int score, int ply){
+        if(score >= MATE - MAX_PLY){
+            return score - ply;
+        }
+        if(score <= -MATE + MAX_PLY){
+            return score + ply;
+        }
+        return score;
+    }
+}
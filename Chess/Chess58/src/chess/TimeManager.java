@@ -0,0 +1,84 @@
+/**
+ * TimeManager decides how long the search may think about one move. It gives two limits:
+ * the soft limit is checked between iterations, and no new depth is started once it has passed, because that depth would most likely not finish anyway;
+ * the hard limit is checked while searching, every few thousand nodes, and stops the search in the middle of a depth.
+ * A TimeManager never changes once it is made, so the threads of a parallel search can share one.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public final class TimeManager {
+
+    /**
+     * DEFAULT_MOVES_TO_GO is how many more moves the clock is assumed to have to last for when the time control does not say
+     * MOVE_OVERHEAD is kept back from the clock for everything that happens around the search, such as sending the move
+     * INSTABILITY_PERCENT is how much the soft limit grows, up to the hard limit, every time the best move changes between depths
+     * NONE is the manager for a search without a time limit
+     */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    private static final long MOVE_OVERHEAD = 50;
+    public static final int INSTABILITY_PERCENT = 50;
+    public static final TimeManager NONE = new TimeManager(0, 0);
+
+    /**
+     * softMillis and hardMillis are the two limits in milliseconds, 0 meaning no limit
+     */
+    private final long softMillis;
+    private final long hardMillis;
+
+    /**
+     * Constructor that creates a manager with the given limits
+     * @param softMillis soft limit in milliseconds, 0 for none
+     * @param hardMillis hard limit in milliseconds, 0 for none
+     */
+    private TimeManager(long softMillis, long hardMillis){
+        this.softMillis = softMillis;
+        this.hardMillis = hardMillis;
+    }
+
+    /**
+     * Creates a manager for a fixed time per move. The search uses all of it, so both limits are the same.
+     * @param millis time for the move in milliseconds, 0 for no limit
+     * @return the time manager
+     */
+    public static TimeManager fixed(long millis){
+        if(millis <= 0){
+            return NONE;
+        }
+        return new TimeManager(millis, millis);
+    }
+
+    /**
+     * Creates a manager for a game clock. The remaining time is split evenly over the moves still to be made, most of the increment is added,
+     * and the hard limit lets an unclear position take up to four times that, but never more than half of what is left on the clock.
+     * @param remainingMillis time left on the player's clock in milliseconds
+     * @param incrementMillis time added to the clock after every move in milliseconds
+     * @param movesToGo moves to make before the clock is next filled up, or 0 if it never is
+     * @return the time manager
+     */
+    public static TimeManager clock(long remainingMillis, long incrementMillis, int movesToGo){
+        long available = Math.max(remainingMillis - MOVE_OVERHEAD, 1);
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+        long hard = Math.max(Math.min(available / 2, (available / moves + incrementMillis * 3 / 4) * 4), 1);
+        long soft = Math.max(Math.min(available / moves + incrementMillis * 3 / 4, hard), 1);
+        return new TimeManager(soft, hard);
+    }
+
+    /**
+     * Gives the soft limit, after which no new depth is started
+     * @return soft limit in milliseconds, 0 for none
+     */
+    public long getSoftMillis(){
+        return softMillis;
+    }
+
+    /**
+     * Gives the hard limit, after which the search stops in the middle of a depth
+     * @return hard limit in milliseconds, 0 for none
+     */
+    public long getHardMillis(){
+        return hardMillis;
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * TranspositionTable remembers what the search found out about positions it has already seen, keyed by their Zobrist key.
+ * The same position is often reached through different move orders, and looking it up is far cheaper than searching it again.
+ * Every entry is two longs in one preallocated array: the key XORed with the data, then the data. A reader only accepts an entry when
+ * XORing the two gives back its key, so an entry half written by another thread is treated as a miss and the table can be shared without locks.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class TranspositionTable {
+
+    /**
+     * UPPER, LOWER and EXACT say how the stored score relates to the real score of the position: at most, at least, or equal.
+     * None of them is 0, so an entry with data 0 is always empty.
+     * ENTRY_BYTES is the memory one entry takes, used to turn a size in megabytes into a number of entries
+     */
+    public static final int UPPER = 1, LOWER = 2, EXACT = 3;
+    private static final int ENTRY_BYTES = 16;
+
+    /**
+     * The data long holds the move in bits 0-15, the score in bits 16-35 (signed), the depth in bits 36-43,
+     * the bound in bits 44-45 and the age of the search that stored it in bits 46-53
+     */
+    private static final int SCORE_SHIFT = 16, DEPTH_SHIFT = 36, BOUND_SHIFT = 44, AGE_SHIFT = 46;
+
+    /**
+     * table holds two longs per entry, key ^ data followed by data
+     * mask turns a key into an entry index; the number of entries is a power of two
+     * age is bumped at the start of every search so entries left over from earlier searches can be replaced first
+     * hits, misses and collisions count probes that found the position, found nothing, or found a different position in its slot
+     */
+    private final long[] table;
+    private final int mask;
+    private volatile int age;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * Constructor that allocates a table of at most the given size. The number of entries is rounded down to a power of two.
+     * @param megabytes size of the table in megabytes
+     */
+    public TranspositionTable(int megabytes){
+        long entries = Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = (int) Math.min(Long.highestOneBit(entries), 1 << 29);
+        table = new long[size * 2];
+        mask = size - 1;
+    }
+
+    /**
+     * Looks a position up
+     * @param key Zobrist key of the position
+     * @return data of the entry (read it with move, score, depth and bound), or 0 if the position is not in the table
+     */
+    public long probe(long key){
+        int index = ((int) key & mask) << 1;
+        long check = table[index];
+        long data = table[index + 1];
+        if(data != 0 && (check ^ data) == key){
+            hits.increment();
+            return data;
+        }
+        if(data != 0){
+            collisions.increment();
+        }
+        misses.increment();
+        return 0L;
+    }
+
+    /**
+     * Stores what a search found out about a position. A slot is taken over if it is empty, holds the same position, was written by an
+     * earlier search, or holds a shallower result; otherwise the deeper result already there is kept.
+     * @param key Zobrist key of the position
+     * @param move best packed move found, or 0 if there is none
+     * @param score score of the position
+     * @param depth depth the position was searched to
+     * @param bound UPPER, LOWER or EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound){
+        int index = ((int) key & mask) << 1;
+        long oldData = table[index + 1];
+        boolean samePosition = (table[index] ^ oldData) == key;
+        if(oldData != 0 && !samePosition && age(oldData) == (age & 0xFF) && depth(oldData) > depth){
+            return;
+        }
+        //keep the move we already know about if this search did not find one
+        if(move == 0 && samePosition){
+            move = move(oldData);
+        }
+        long data = (move & 0xFFFFL)
+                | (((long) score & 0xFFFFFL) << SCORE_SHIFT)
+                | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) (age & 0xFF) << AGE_SHIFT);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /**
+     * Marks the start of a new search, so the entries of earlier searches become the first ones to be replaced
+     */
+    public void newSearch(){
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table and resets the counters
+     */
+    public void clear(){
+        Arrays.fill(table, 0L);
+        age = 0;
+        resetStats();
+    }
+
+    /**
+     * Resets the hit, miss and collision counters
+     */
+    public void resetStats(){
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    /**
+     * Gives the number of probes that found their position
+     * @return hit count
+     */
+    public long getHits(){
+        return hits.sum();
+    }
+
+    /**
+     * Gives the number of probes that did not find their position
+     * @return miss count
+     */
+    public long getMisses(){
+        return misses.sum();
+    }
+
+    /**
+     * Gives the number of missed probes whose slot held a different position
+     * @return collision count
+     */
+    public long getCollisions(){
+        return collisions.sum();
+    }
+
+    /**
+     * Gives the number of entries the table has room for
+     * @return number of entries
+     */
+    public int size(){
+        return mask + 1;
+    }
+
+    /**
+     * Gives the best move of an entry
+     * @param data entry data from probe
+     * @return packed move, or 0 if none was stored
+     */
+    public static int move(long data){
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * Gives the score of an entry
+     * @param data entry data from probe
+     * @return score
+     */
+    public static int score(long data){
+        return (int) (data << (64 - DEPTH_SHIFT) >> (64 - DEPTH_SHIFT + SCORE_SHIFT));
+    }
+
+    /**
+     * Gives the depth of an entry
+     * @param data entry data from probe
+     * @return depth the position was searched to
+     */
+    public static int depth(long data){
+        return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    /**
+     * Gives the bound of an entry
+     * @param data entry data from probe
+     * @return UPPER, LOWER or EXACT
+     */
+    public static int bound(long data){
+        return (int) ((data >>> BOUND_SHIFT) & 3);
+    }
+
+    /**
+     * Gives the age of the search that stored an entry
+     * @param data entry data
+     * @return age from 0 to 255
+     */
+    private static int age(long data){
+        return (int) ((data >>> AGE_SHIFT) & 0xFF);
+    }
+}
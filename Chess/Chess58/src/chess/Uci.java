@@ -0,0 +1,302 @@
+/**
+ * Uci lets the engine talk the Universal Chess Interface protocol on standard input and output instead of running the console game,
+ * so it can be plugged into chess GUIs, tournament runners and test tools. Start it with the "uci" argument.
+ * It understands uci, isready, ucinewgame, setoption (Hash and Threads), position startpos|fen <fen> [moves ...], go (depth, movetime, wtime/btime,
+ * winc/binc, movestogo, infinite), stop and quit. The search runs on its own thread so stop and isready are answered while it thinks.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+public class Uci {
+
+    /**
+     * out is where every answer is written; it is flushed after each one because the GUI waits for it
+     * board is the position set by the last position command, reused from one command to the next
+     * hashMegabytes and threads are the current option values, and table and engine are built from them
+     * searcher is the thread running the current go command, or null if there is none
+     * infinite is true while a "go infinite" search must keep its best move to itself until stop is sent, even if it has finished early
+     */
+    private final PrintStream out;
+    private final Board board = new Board();
+    private int hashMegabytes = Search.DEFAULT_HASH_MB;
+    private int threads = 1;
+    private TranspositionTable table;
+    private ParallelSearch engine;
+    private Thread searcher;
+    private volatile boolean infinite;
+
+    /**
+     * Constructor that creates a front-end writing its answers to the given stream
+     * @param out stream the answers are written to
+     */
+    public Uci(PrintStream out){
+        this.out = out;
+        table = new TranspositionTable(hashMegabytes);
+        engine = new ParallelSearch(threads, table, out);
+    }
+
+    /**
+     * Reads UCI commands from standard input until "quit" or the end of the input
+     * @param args not used
+     * @throws IOException if standard input cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        Uci uci = new Uci(System.out);
+        String line;
+        while((line = reader.readLine()) != null){
+            if(!uci.handle(line)){
+                break;
+            }
+        }
+        uci.quit();
+    }
+
+    /**
+     * Carries out one command
+     * @param line the command as it was read
+     * @return false if the command was quit, true otherwise
+     */
+    public boolean handle(String line){
+        String[] tokens = line.trim().split("\\s+");
+        switch(tokens[0]){
+            case "uci":
+                out.println("id name Chess58");
+                out.println("id author Waleed Rizwan, Mohammad (Massab) Sohail");
+                out.println("option name Hash type spin default " + Search.DEFAULT_HASH_MB + " min 1 max 4096");
+                out.println("option name Threads type spin default 1 min 1 max " + Runtime.getRuntime().availableProcessors());
+                out.println("uciok");
+                break;
+            case "isready":
+                out.println("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                table.clear();
+                board.initializeBoardPieces();
+                break;
+            case "setoption":
+                setOption(tokens);
+                break;
+            case "position":
+                stopSearch();
+                position(line);
+                break;
+            case "go":
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            default:
+                //unknown commands are ignored, as the protocol asks
+                break;
+        }
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Stops any search still running and the helper threads of the engine
+     */
+    public void quit(){
+        stopSearch();
+        engine.shutdown();
+    }
+
+    /**
+     * Handles "setoption name Hash value 64" and "setoption name Threads value 8"
+     * @param tokens the words of the command
+     */
+    private void setOption(String[] tokens){
+        if(tokens.length < 5 || !tokens[1].equals("name") || !tokens[3].equals("value")){
+            return;
+        }
+        int value;
+        try{
+            value = Integer.parseInt(tokens[4]);
+        }
+        catch(NumberFormatException e){
+            out.println("info string bad value " + tokens[4]);
+            return;
+        }
+        stopSearch();
+        if(tokens[2].equalsIgnoreCase("Hash")){
+            hashMegabytes = Math.max(value, 1);
+            table = new TranspositionTable(hashMegabytes);
+        }
+        else if(tokens[2].equalsIgnoreCase("Threads")){
+            threads = Math.max(value, 1);
+        }
+        else{
+            return;
+        }
+        engine.shutdown();
+        engine = new ParallelSearch(threads, table, out);
+    }
+
+    /**
+     * Handles "position startpos [moves e2e4 e7e5 ...]" and "position fen <fen> [moves ...]". The FEN is read straight out of the line.
+     * @param line the command as it was read
+     */
+    private void position(String line){
+        int k = line.indexOf("position") + "position".length();
+        int fen = line.indexOf(" fen ", k);
+        try{
+            if(fen >= 0){
+                k = board.loadFen(line, fen + " fen ".length());
+            }
+            else if(line.indexOf("startpos", k) >= 0){
+                board.initializeBoardPieces();
+            }
+            else{
+                out.println("info string position needs startpos or fen");
+                return;
+            }
+        }
+        catch(IllegalArgumentException e){
+            out.println("info string " + e.getMessage());
+            return;
+        }
+        int moves = line.indexOf(" moves", k);
+        if(moves < 0){
+            return;
+        }
+        String[] tokens = line.substring(moves + " moves".length()).trim().split("\\s+");
+        for(String token : tokens){
+            if(token.isEmpty()){
+                continue;
+            }
+            int move = Perft.findMove(board, token);
+            if(move < 0 || !board.playMove(move)){
+                out.println("info string illegal move " + token);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Handles "go" with its limits, and starts the search on its own thread. The thread prints "bestmove" when the search is done.
+     * A limit whose value is not a number is reported with "info string" and left at its default.
+     * @param tokens the words of the command
+     */
+    private void go(String[] tokens){
+        stopSearch();
+        int depth = Search.MAX_PLY;
+        long moveTime = 0;
+        long whiteTime = -1;
+        long blackTime = -1;
+        long whiteIncrement = 0;
+        long blackIncrement = 0;
+        int movesToGo = 0;
+        infinite = false;
+        for(int k = 1; k < tokens.length; k++){
+            String value = k + 1 < tokens.length ? tokens[k + 1] : "0";
+            try{
+                switch(tokens[k]){
+                    case "depth":
+                        depth = Integer.parseInt(value);
+                        k++;
+                        break;
+                    case "movetime":
+                        moveTime = Long.parseLong(value);
+                        k++;
+                        break;
+                    case "wtime":
+                        whiteTime = Long.parseLong(value);
+                        k++;
+                        break;
+                    case "btime":
+                        blackTime = Long.parseLong(value);
+                        k++;
+                        break;
+                    case "winc":
+                        whiteIncrement = Long.parseLong(value);
+                        k++;
+                        break;
+                    case "binc":
+                        blackIncrement = Long.parseLong(value);
+                        k++;
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(value);
+                        k++;
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    default:
+                        //anything unknown just leaves the search unlimited
+                        break;
+                }
+            }
+            catch(NumberFormatException e){
+                //a limit that is not a number is skipped and keeps its default
+                out.println("info string bad value " + value + " for " + tokens[k]);
+                k++;
+            }
+        }
+        boolean white = board.isWhiteToMove();
+        long clock = white ? whiteTime : blackTime;
+        TimeManager time;
+        if(moveTime > 0){
+            time = TimeManager.fixed(moveTime);
+        }
+        else if(clock >= 0){
+            time = TimeManager.clock(clock, white ? whiteIncrement : blackIncrement, movesToGo);
+        }
+        else{
+            time = TimeManager.NONE;
+        }
+
+        //search a copy so the next position command cannot change the board under the search
+        Board position = new Board(board);
+        ParallelSearch search = engine;
+        int maxDepth = depth;
+        searcher = new Thread(() -> {
+            int move = search.search(position, maxDepth, time);
+            while(infinite){
+                try{
+                    Thread.sleep(1);
+                }
+                catch(InterruptedException e){
+                    break;
+                }
+            }
+            out.println("bestmove " + (move < 0 ? "0000" : Move.toString(move)));
+            out.flush();
+        }, "uci-search");
+        searcher.start();
+    }
+
+    /**
+     * Stops the running search, if there is one, and waits until it has printed its best move
+     */
+    private void stopSearch(){
+        if(searcher == null){
+            return;
+        }
+        infinite = false;
+        while(searcher.isAlive()){
+            //a search that has not started yet forgets the request when it does, so keep asking until it is finished
+            engine.stop();
+            try{
+                searcher.join(1);
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        searcher = null;
+    }
+}
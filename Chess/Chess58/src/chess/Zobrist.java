@@ -0,0 +1,82 @@
+/**
+ * Zobrist holds the random numbers used to hash a chess position into a single 64-bit key.
+ * The key of a position is the XOR of one number for every piece on its tile, one for black to move, one for the castling rights
+ * and one for the en passant file, so a move only has to XOR out what changed and XOR in what replaced it.
+ * The numbers come from a fixed seed so the same position gets the same key in every run and on every machine.
+ * @author Waleed Rizwan
+ * @author Mohammad (Massab) Sohail
+ */
+
+package chess;
+
+public final class Zobrist {
+
+    /**
+     * PIECES has one number per piece index (see Piece.getIndex()) and square, stored as index * 64 + square
+     * CASTLING has one number per combination of the four castling rights
+     * EN_PASSANT has one number per file of the en passant tile
+     * SIDE is XORed in when black is to move
+     */
+    private static final long[] PIECES = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    public static final long SIDE;
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for(int i = 0; i < PIECES.length; i++){
+            PIECES[i] = next();
+        }
+        //no castling rights hashes to zero so the key of a bare position does not depend on this table
+        for(int i = 1; i < CASTLING.length; i++){
+            CASTLING[i] = next();
+        }
+        for(int i = 0; i < EN_PASSANT.length; i++){
+            EN_PASSANT[i] = next();
+        }
+        SIDE = next();
+    }
+
+    private Zobrist(){
+    }
+
+    /**
+     * Gives the number for a piece standing on a square
+     * @param index piece index from Piece.getIndex()
+     * @param square square index
+     * @return random number for that piece and square
+     */
+    public static long piece(int index, int square){
+        return PIECES[(index << 6) | square];
+    }
+
+    /**
+     * Gives the number for a set of castling rights
+     * @param rights castling rights bits, see Board.WHITE_KING_SIDE and friends
+     * @return random number for those rights, 0 if there are none
+     */
+    public static long castling(int rights){
+        return CASTLING[rights];
+    }
+
+    /**
+     * Gives the number for an en passant file
+     * @param file column of the en passant tile, or -1 if there is none
+     * @return random number for that file, 0 if there is none
+     */
+    public static long enPassant(int file){
+        return file < 0 ? 0L : EN_PASSANT[file];
+    }
+
+    /**
+     * SplitMix64 generator. It is written out here instead of using java.util.Random so the keys never change between Java versions.
+     * @return next random number
+     */
+    private static long next(){
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}